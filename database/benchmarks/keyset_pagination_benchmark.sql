@@ -0,0 +1,87 @@
+-- ========================================
+-- Benchmark: OFFSET vs keyset pagination, page 1 vs page 1000 (size 20)
+-- Run with psql against a scratch database:
+--   psql -f database/benchmarks/keyset_pagination_benchmark.sql
+-- Everything lives in the bench schema and is dropped at the end.
+-- ========================================
+
+\timing on
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+
+CREATE TABLE bench.products (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    price NUMERIC(10, 2) NOT NULL
+);
+
+CREATE TABLE bench.orders (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    total NUMERIC(10, 2) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- 1M products, 2M orders over 1000 users (one heavy user with 50k orders)
+INSERT INTO bench.products (name, price)
+SELECT 'Product ' || i, (random() * 5000)::numeric(10, 2)
+FROM generate_series(1, 1000000) AS i;
+
+INSERT INTO bench.orders (user_id, total, created_at)
+SELECT CASE WHEN i % 40 = 0 THEN 1 ELSE 2 + (i % 999) END,
+       (random() * 500)::numeric(10, 2),
+       NOW() - (i || ' seconds')::interval
+FROM generate_series(1, 2000000) AS i;
+
+CREATE INDEX ON bench.orders (user_id, created_at DESC, id DESC);
+CREATE INDEX ON bench.orders (created_at DESC, id DESC);
+ANALYZE bench.products;
+ANALYZE bench.orders;
+
+-- ---------- Catalog (GET /api/products vs /api/products/cursor) ----------
+
+-- Old: page 1000 reads and discards 19,980 rows, plus the count(*) Page needs
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.products ORDER BY id DESC OFFSET 19980 LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM bench.products;
+
+-- New: seek from the last seen id (cursor), 21 rows read whatever the depth
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.products WHERE id < 980021 ORDER BY id DESC LIMIT 21;
+
+-- ---------- My orders (GET /api/orders/my-orders vs /my-orders/cursor) ----------
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.orders WHERE user_id = 1
+ORDER BY created_at DESC, id DESC OFFSET 19980 LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM bench.orders WHERE user_id = 1;
+
+-- Cursor taken from the last row of page 999
+EXPLAIN (ANALYZE, BUFFERS)
+WITH last_seen AS (
+    SELECT created_at, id FROM bench.orders WHERE user_id = 1
+    ORDER BY created_at DESC, id DESC OFFSET 19979 LIMIT 1
+)
+SELECT o.* FROM bench.orders o, last_seen l
+WHERE o.user_id = 1 AND (o.created_at, o.id) < (l.created_at, l.id)
+ORDER BY o.created_at DESC, o.id DESC LIMIT 21;
+
+-- ---------- Admin all orders (GET /api/orders/admin/all vs /admin/all/cursor) ----------
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.orders ORDER BY created_at DESC, id DESC OFFSET 19980 LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM bench.orders;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.orders
+WHERE (created_at, id) < (NOW() - interval '19980 seconds', 19980)
+ORDER BY created_at DESC, id DESC LIMIT 21;
+
+DROP SCHEMA bench CASCADE;
@@ -0,0 +1,68 @@
+-- ========================================
+-- Benchmark: LIKE '%kw%' vs full-text search on a 1M-row catalog
+-- Run with psql against a scratch database (needs schema.sql applied first):
+--   psql -f database/benchmarks/product_search_benchmark.sql
+-- Everything lives in the bench schema and is dropped at the end.
+-- ========================================
+
+\timing on
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+
+CREATE TABLE bench.products (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    price NUMERIC(10, 2) NOT NULL,
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+    ) STORED
+);
+
+-- 1M products built from a small vocabulary so searches have realistic hit counts
+INSERT INTO bench.products (name, description, price)
+SELECT
+    (ARRAY['Running', 'Wireless', 'Leather', 'Organic', 'Smart', 'Classic', 'Portable', 'Vintage'])[1 + (i % 8)]
+        || ' ' || (ARRAY['Shoe', 'Headphones', 'Wallet', 'Tea', 'Watch', 'Jacket', 'Speaker', 'Lamp', 'Backpack', 'Bottle'])[1 + (i / 8 % 10)]
+        || ' ' || i,
+    'Model ' || md5(i::text) || ' with '
+        || (ARRAY['fast charging', 'water resistance', 'hand stitching', 'fair trade sourcing', 'long battery life'])[1 + (i % 5)],
+    (random() * 5000)::numeric(10, 2)
+FROM generate_series(1, 1000000) AS i;
+
+CREATE INDEX ON bench.products (name);
+CREATE INDEX ON bench.products USING GIN (search_vector);
+CREATE INDEX ON bench.products USING GIN (name gin_trgm_ops);
+ANALYZE bench.products;
+
+-- Current query: findByNameContainingIgnoreCase (btree on name cannot be used)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.products WHERE LOWER(name) LIKE LOWER('%headphones%') LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM bench.products WHERE LOWER(name) LIKE LOWER('%headphones%');
+
+-- New query: ranked full-text with prefix match + trigram typo tolerance
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.products p
+WHERE p.search_vector @@ to_tsquery('simple', 'wireless:* & headph:*') OR p.name % 'wireless headph'
+ORDER BY ts_rank_cd(p.search_vector, to_tsquery('simple', 'wireless:* & headph:*')) DESC,
+         similarity(p.name, 'wireless headph') DESC, p.id DESC
+LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM bench.products p
+WHERE p.search_vector @@ to_tsquery('simple', 'wireless:* & headph:*') OR p.name % 'wireless headph';
+
+-- Typo: "headphnoes" only matches through the trigram index
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench.products p
+WHERE p.search_vector @@ to_tsquery('simple', 'headphnoes:*') OR p.name % 'headphnoes'
+ORDER BY similarity(p.name, 'headphnoes') DESC
+LIMIT 20;
+
+DROP SCHEMA bench CASCADE;
@@ -0,0 +1,19 @@
+-- ========================================
+-- Migration 001: Full-text product search
+-- Replaces LOWER(name) LIKE '%kw%' scans with a ranked tsvector + GIN search
+-- and trigram matching for typos. Safe to re-run.
+-- ========================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Search document: name (weight A) + description (weight B), kept current by Postgres
+ALTER TABLE products
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+    ) STORED;
+
+-- CONCURRENTLY keeps the catalog writable while the indexes build
+-- (run this file outside a transaction block)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_search ON products USING GIN (search_vector);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_name_trgm ON products USING GIN (name gin_trgm_ops);
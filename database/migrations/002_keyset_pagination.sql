@@ -0,0 +1,15 @@
+-- ========================================
+-- Migration 002: Keyset pagination for order listings
+-- Composite indexes matching ORDER BY created_at DESC, id DESC so each slice is an
+-- index range scan that stops after size + 1 rows, however deep the client is.
+-- The catalog slices on the primary key and needs no new index. Safe to re-run.
+-- ========================================
+
+-- CONCURRENTLY keeps orders writable while the indexes build
+-- (run this file outside a transaction block)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_user_created_id ON orders(user_id, created_at DESC, id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_created_id ON orders(created_at DESC, id DESC);
+
+-- Both are covered by the new indexes (leading columns)
+DROP INDEX CONCURRENTLY IF EXISTS idx_orders_user_id;
+DROP INDEX CONCURRENTLY IF EXISTS idx_orders_created_at;
@@ -0,0 +1,38 @@
+-- ========================================
+-- Migration 003: products.updated_at
+-- Last-modified time of every product, kept by triggers so it also covers writes that
+-- bypass JPA (bulk SQL updates, stock changes) and image changes. Used for incremental
+-- catalog exports (modifiedSince). Safe to re-run.
+-- ========================================
+
+ALTER TABLE products
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW();
+
+CREATE OR REPLACE FUNCTION products_touch_updated_at() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at := NOW();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_products_updated_at ON products;
+CREATE TRIGGER trg_products_updated_at
+    BEFORE UPDATE ON products
+    FOR EACH ROW EXECUTE FUNCTION products_touch_updated_at();
+
+-- Adding or removing an image modifies its product
+CREATE OR REPLACE FUNCTION product_image_touch_product() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE products SET updated_at = NOW() WHERE id = COALESCE(NEW.product_id, OLD.product_id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_product_image_touch_product ON product_image;
+CREATE TRIGGER trg_product_image_touch_product
+    AFTER INSERT OR UPDATE OR DELETE ON product_image
+    FOR EACH ROW EXECUTE FUNCTION product_image_touch_product();
+
+-- CONCURRENTLY keeps the catalog writable while the index builds
+-- (run this file outside a transaction block)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_updated_at ON products(updated_at, id);
@@ -0,0 +1,97 @@
+-- ========================================
+-- Migration 004: Catalog change feed (GET /api/products/changes)
+-- updated_at on category and vendors, row-change timestamps (clock_timestamp, not the
+-- transaction start) and tombstones for deleted catalog rows. Renaming a category or a
+-- store touches its products, since product responses embed those names. Safe to re-run.
+-- ========================================
+
+-- Generic "touch" trigger function, replaces products_touch_updated_at from 003
+CREATE OR REPLACE FUNCTION touch_updated_at() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at := clock_timestamp();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_products_updated_at ON products;
+CREATE TRIGGER trg_products_updated_at
+    BEFORE INSERT OR UPDATE ON products
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+DROP FUNCTION IF EXISTS products_touch_updated_at();
+
+ALTER TABLE category ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW();
+ALTER TABLE vendors ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW();
+
+DROP TRIGGER IF EXISTS trg_category_updated_at ON category;
+CREATE TRIGGER trg_category_updated_at
+    BEFORE INSERT OR UPDATE ON category
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+DROP TRIGGER IF EXISTS trg_vendors_updated_at ON vendors;
+CREATE TRIGGER trg_vendors_updated_at
+    BEFORE INSERT OR UPDATE ON vendors
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+-- Category type / store name are part of every product response
+CREATE OR REPLACE FUNCTION category_touch_products() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.type IS DISTINCT FROM OLD.type THEN
+        UPDATE products SET updated_at = clock_timestamp() WHERE category_id = NEW.id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_category_touch_products ON category;
+CREATE TRIGGER trg_category_touch_products
+    AFTER UPDATE ON category
+    FOR EACH ROW EXECUTE FUNCTION category_touch_products();
+
+CREATE OR REPLACE FUNCTION vendors_touch_products() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.store_name IS DISTINCT FROM OLD.store_name THEN
+        UPDATE products SET updated_at = clock_timestamp() WHERE vendor_id = NEW.id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_vendors_touch_products ON vendors;
+CREATE TRIGGER trg_vendors_touch_products
+    AFTER UPDATE ON vendors
+    FOR EACH ROW EXECUTE FUNCTION vendors_touch_products();
+
+-- Tombstones: deleted catalog rows, kept for the feed retention window
+CREATE TABLE IF NOT EXISTS catalog_tombstones (
+    entity VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (entity, entity_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_tombstones_deleted ON catalog_tombstones(entity, deleted_at, entity_id);
+
+-- TG_ARGV[0]: entity name ('product', 'category', 'vendor')
+CREATE OR REPLACE FUNCTION record_tombstone() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO catalog_tombstones (entity, entity_id, deleted_at)
+    VALUES (TG_ARGV[0], OLD.id, clock_timestamp())
+    ON CONFLICT (entity, entity_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_products_tombstone ON products;
+CREATE TRIGGER trg_products_tombstone
+    AFTER DELETE ON products
+    FOR EACH ROW EXECUTE FUNCTION record_tombstone('product');
+
+DROP TRIGGER IF EXISTS trg_category_tombstone ON category;
+CREATE TRIGGER trg_category_tombstone
+    AFTER DELETE ON category
+    FOR EACH ROW EXECUTE FUNCTION record_tombstone('category');
+
+DROP TRIGGER IF EXISTS trg_vendors_tombstone ON vendors;
+CREATE TRIGGER trg_vendors_tombstone
+    AFTER DELETE ON vendors
+    FOR EACH ROW EXECUTE FUNCTION record_tombstone('vendor');
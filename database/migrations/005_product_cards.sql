@@ -0,0 +1,80 @@
+-- ========================================
+-- Migration 005: product_cards read model
+-- One narrow row per product with exactly what a listing tile shows (name, price, first
+-- image, category name, store name, in-stock flag), so catalog listings and search read
+-- a single table instead of products (+ TEXT description) joined to category, vendors and
+-- product_image. Kept in sync by a trigger on products: every write that changes a card
+-- (product insert/update, image add/remove, category or store rename) already touches the
+-- product row (migrations 003/004). Deletes cascade. Safe to re-run.
+-- ========================================
+
+CREATE TABLE IF NOT EXISTS product_cards (
+    product_id BIGINT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    price NUMERIC(10, 2) NOT NULL,
+    image_url TEXT,
+    category_id BIGINT,
+    category_name VARCHAR(255),
+    vendor_id BIGINT NOT NULL,
+    store_name VARCHAR(255) NOT NULL,
+    in_stock BOOLEAN NOT NULL,
+    added_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT fk_product_card_product FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_cards_category_id ON product_cards(category_id);
+CREATE INDEX IF NOT EXISTS idx_product_cards_vendor_id ON product_cards(vendor_id);
+CREATE INDEX IF NOT EXISTS idx_product_cards_price ON product_cards(price);
+
+-- Rebuild the card of the product row that was just written
+CREATE OR REPLACE FUNCTION refresh_product_card() RETURNS TRIGGER AS $$
+BEGIN
+    -- Stock moves on every order: skip those unless the in-stock flag flips
+    -- (image changes and renames only touch updated_at, so they still refresh)
+    IF TG_OP = 'UPDATE'
+            AND NEW.stock_quantity IS DISTINCT FROM OLD.stock_quantity
+            AND (NEW.stock_quantity > 0) = (OLD.stock_quantity > 0)
+            AND NEW.name IS NOT DISTINCT FROM OLD.name
+            AND NEW.price IS NOT DISTINCT FROM OLD.price
+            AND NEW.category_id IS NOT DISTINCT FROM OLD.category_id
+            AND NEW.vendor_id IS NOT DISTINCT FROM OLD.vendor_id THEN
+        RETURN NULL;
+    END IF;
+
+    INSERT INTO product_cards (product_id, name, price, image_url, category_id, category_name,
+                               vendor_id, store_name, in_stock, added_at)
+    SELECT NEW.id, NEW.name, NEW.price,
+           (SELECT i.image_url FROM product_image i WHERE i.product_id = NEW.id ORDER BY i.id LIMIT 1),
+           NEW.category_id, c.type, NEW.vendor_id, v.store_name, NEW.stock_quantity > 0, NEW.added_at
+    FROM vendors v
+    LEFT JOIN category c ON c.id = NEW.category_id
+    WHERE v.id = NEW.vendor_id
+    ON CONFLICT (product_id) DO UPDATE SET
+        name = EXCLUDED.name,
+        price = EXCLUDED.price,
+        image_url = EXCLUDED.image_url,
+        category_id = EXCLUDED.category_id,
+        category_name = EXCLUDED.category_name,
+        vendor_id = EXCLUDED.vendor_id,
+        store_name = EXCLUDED.store_name,
+        in_stock = EXCLUDED.in_stock,
+        added_at = EXCLUDED.added_at;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_products_refresh_card ON products;
+CREATE TRIGGER trg_products_refresh_card
+    AFTER INSERT OR UPDATE ON products
+    FOR EACH ROW EXECUTE FUNCTION refresh_product_card();
+
+-- Backfill existing products
+INSERT INTO product_cards (product_id, name, price, image_url, category_id, category_name,
+                           vendor_id, store_name, in_stock, added_at)
+SELECT p.id, p.name, p.price,
+       (SELECT i.image_url FROM product_image i WHERE i.product_id = p.id ORDER BY i.id LIMIT 1),
+       p.category_id, c.type, p.vendor_id, v.store_name, p.stock_quantity > 0, p.added_at
+FROM products p
+JOIN vendors v ON v.id = p.vendor_id
+LEFT JOIN category c ON c.id = p.category_id
+ON CONFLICT (product_id) DO NOTHING;
@@ -0,0 +1,31 @@
+-- ========================================
+-- Migration 006: Keys for the Redis cart write-behind
+-- The flusher upserts with ON CONFLICT, which needs one cart per user and one line per
+-- (cart, product). Duplicates left by earlier races are folded together first.
+-- Safe to re-run.
+-- ========================================
+
+-- Move lines of a user's extra carts into the oldest cart, then drop the extra carts
+UPDATE cartitem ci SET cart_id = k.keep_id
+FROM cart c
+JOIN (SELECT user_id, MIN(id) AS keep_id FROM cart WHERE user_id IS NOT NULL GROUP BY user_id) k
+    ON k.user_id = c.user_id
+WHERE ci.cart_id = c.id AND c.id <> k.keep_id;
+
+DELETE FROM cart c USING cart k WHERE c.user_id = k.user_id AND c.id > k.id;
+
+-- Sum duplicate lines into the oldest one
+UPDATE cartitem ci SET quantity = d.total
+FROM (SELECT MIN(id) AS keep_id, SUM(quantity) AS total FROM cartitem
+      GROUP BY cart_id, product_id HAVING COUNT(*) > 1) d
+WHERE ci.id = d.keep_id;
+
+DELETE FROM cartitem ci USING cartitem k
+WHERE ci.cart_id = k.cart_id AND ci.product_id = k.product_id AND ci.id > k.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_cart_user_id ON cart(user_id);
+DROP INDEX IF EXISTS idx_cart_user_id;
+
+-- Leading cart_id also serves the lookups idx_cartitem_cart_id was for
+CREATE UNIQUE INDEX IF NOT EXISTS uq_cartitem_cart_product ON cartitem(cart_id, product_id);
+DROP INDEX IF EXISTS idx_cartitem_cart_id;
@@ -0,0 +1,25 @@
+-- ========================================
+-- Migration 007: Cart activity time for the abandoned-cart sweeper
+-- cart.updated_at moves whenever one of its lines is inserted, updated or deleted (the
+-- write-behind flush, the Postgres fallback, checkout). Existing carts start at the time
+-- of the migration, so nothing is swept before a full idle period has passed. Safe to re-run.
+-- ========================================
+
+ALTER TABLE cart ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW();
+
+-- Touch the cart once per transaction (later rows find it already at NOW())
+CREATE OR REPLACE FUNCTION cartitem_touch_cart() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE cart SET updated_at = NOW()
+    WHERE id = COALESCE(NEW.cart_id, OLD.cart_id) AND updated_at < NOW();
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_cartitem_touch_cart ON cartitem;
+CREATE TRIGGER trg_cartitem_touch_cart
+    AFTER INSERT OR UPDATE OR DELETE ON cartitem
+    FOR EACH ROW EXECUTE FUNCTION cartitem_touch_cart();
+
+-- Sweeper scans idle carts oldest first
+CREATE INDEX IF NOT EXISTS idx_cart_updated_at ON cart(updated_at, id);
@@ -0,0 +1,10 @@
+-- ========================================
+-- Migration 008: Fence for the Redis cart write-behind
+-- cart.version moves on every write that bypasses the live Redis hash (the Postgres
+-- fallback while Redis is unavailable, clear, checkout). A hash remembers the version it
+-- was loaded from, and the flusher skips and drops a hash whose version is behind, so a
+-- hash that missed a direct write (e.g. made by another node during its Redis outage) is
+-- never flushed over the newer rows. Existing carts and hashes start at 0. Safe to re-run.
+-- ========================================
+
+ALTER TABLE cart ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -4,6 +4,8 @@
 -- ========================================
 
 -- Drop existing tables (in reverse order of dependencies)
+DROP TABLE IF EXISTS catalog_tombstones CASCADE;
+DROP TABLE IF EXISTS product_cards CASCADE;
 DROP TABLE IF EXISTS payment CASCADE;
 DROP TABLE IF EXISTS orderitems CASCADE;
 DROP TABLE IF EXISTS orders CASCADE;
@@ -23,6 +25,13 @@ DROP TYPE IF EXISTS payment_status CASCADE;
 DROP TYPE IF EXISTS payment_mode CASCADE;
 DROP TYPE IF EXISTS address_label CASCADE;
 
+-- ========================================
+-- EXTENSIONS
+-- ========================================
+
+-- Trigram matching for typo-tolerant product search
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 -- ========================================
 -- ENUM TYPES
 -- ========================================
@@ -33,6 +42,38 @@ CREATE TYPE payment_status AS ENUM ('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED'
 CREATE TYPE payment_mode AS ENUM ('UPI', 'CARD', 'NET_BANKING', 'CASH_ON_DELIVERY');
 CREATE TYPE address_label AS ENUM ('HOME', 'WORK', 'OTHER');
 
+-- ========================================
+-- CHANGE TRACKING (catalog change feed)
+-- ========================================
+
+-- Row-change time (clock_timestamp, not the transaction start) for updated_at columns
+CREATE OR REPLACE FUNCTION touch_updated_at() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at := clock_timestamp();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Deleted catalog rows, kept for the feed retention window
+CREATE TABLE catalog_tombstones (
+    entity VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (entity, entity_id)
+);
+
+CREATE INDEX idx_catalog_tombstones_deleted ON catalog_tombstones(entity, deleted_at, entity_id);
+
+-- TG_ARGV[0]: entity name ('product', 'category', 'vendor')
+CREATE OR REPLACE FUNCTION record_tombstone() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO catalog_tombstones (entity, entity_id, deleted_at)
+    VALUES (TG_ARGV[0], OLD.id, clock_timestamp())
+    ON CONFLICT (entity, entity_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
 -- ========================================
 -- TABLE: users
 -- ========================================
@@ -60,20 +101,38 @@ CREATE TABLE vendors (
     store_name VARCHAR(255) NOT NULL,
     gstin VARCHAR(50) NOT NULL UNIQUE,
     description TEXT,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
     CONSTRAINT fk_vendor_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
 CREATE INDEX idx_vendors_user_id ON vendors(user_id);
 
+CREATE TRIGGER trg_vendors_updated_at
+    BEFORE INSERT OR UPDATE ON vendors
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+CREATE TRIGGER trg_vendors_tombstone
+    AFTER DELETE ON vendors
+    FOR EACH ROW EXECUTE FUNCTION record_tombstone('vendor');
+
 -- ========================================
 -- TABLE: category
 -- ========================================
 CREATE TABLE category (
     id BIGSERIAL PRIMARY KEY,
     type VARCHAR(255) NOT NULL,
-    description TEXT
+    description TEXT,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
 );
 
+CREATE TRIGGER trg_category_updated_at
+    BEFORE INSERT OR UPDATE ON category
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+CREATE TRIGGER trg_category_tombstone
+    AFTER DELETE ON category
+    FOR EACH ROW EXECUTE FUNCTION record_tombstone('category');
+
 -- ========================================
 -- TABLE: products
 -- ========================================
@@ -86,6 +145,13 @@ CREATE TABLE products (
     price NUMERIC(10, 2) NOT NULL,
     stock_quantity INTEGER NOT NULL DEFAULT 0,
     added_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    -- Last modification (kept by trg_products_updated_at and the image/category/vendor triggers)
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    -- Full-text search document: name weighted above description
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+    ) STORED,
     CONSTRAINT fk_product_vendor FOREIGN KEY (vendor_id) REFERENCES vendors(id) ON DELETE CASCADE,
     CONSTRAINT fk_product_category FOREIGN KEY (category_id) REFERENCES category(id) ON DELETE SET NULL
 );
@@ -94,6 +160,44 @@ CREATE INDEX idx_products_vendor_id ON products(vendor_id);
 CREATE INDEX idx_products_category_id ON products(category_id);
 CREATE INDEX idx_products_name ON products(name);
 CREATE INDEX idx_products_price ON products(price);
+CREATE INDEX idx_products_search ON products USING GIN (search_vector);
+CREATE INDEX idx_products_name_trgm ON products USING GIN (name gin_trgm_ops);
+CREATE INDEX idx_products_updated_at ON products(updated_at, id);
+
+CREATE TRIGGER trg_products_updated_at
+    BEFORE INSERT OR UPDATE ON products
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+CREATE TRIGGER trg_products_tombstone
+    AFTER DELETE ON products
+    FOR EACH ROW EXECUTE FUNCTION record_tombstone('product');
+
+-- Category type / store name are part of every product response
+CREATE OR REPLACE FUNCTION category_touch_products() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.type IS DISTINCT FROM OLD.type THEN
+        UPDATE products SET updated_at = clock_timestamp() WHERE category_id = NEW.id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_category_touch_products
+    AFTER UPDATE ON category
+    FOR EACH ROW EXECUTE FUNCTION category_touch_products();
+
+CREATE OR REPLACE FUNCTION vendors_touch_products() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.store_name IS DISTINCT FROM OLD.store_name THEN
+        UPDATE products SET updated_at = clock_timestamp() WHERE vendor_id = NEW.id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_vendors_touch_products
+    AFTER UPDATE ON vendors
+    FOR EACH ROW EXECUTE FUNCTION vendors_touch_products();
 
 -- ========================================
 -- TABLE: product_image
@@ -107,6 +211,80 @@ CREATE TABLE product_image (
 
 CREATE INDEX idx_product_image_product_id ON product_image(product_id);
 
+-- Adding or removing an image modifies its product
+CREATE OR REPLACE FUNCTION product_image_touch_product() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE products SET updated_at = NOW() WHERE id = COALESCE(NEW.product_id, OLD.product_id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_product_image_touch_product
+    AFTER INSERT OR UPDATE OR DELETE ON product_image
+    FOR EACH ROW EXECUTE FUNCTION product_image_touch_product();
+
+-- ========================================
+-- TABLE: product_cards (listing read model, maintained by trg_products_refresh_card)
+-- ========================================
+CREATE TABLE product_cards (
+    product_id BIGINT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    price NUMERIC(10, 2) NOT NULL,
+    image_url TEXT,
+    category_id BIGINT,
+    category_name VARCHAR(255),
+    vendor_id BIGINT NOT NULL,
+    store_name VARCHAR(255) NOT NULL,
+    in_stock BOOLEAN NOT NULL,
+    added_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT fk_product_card_product FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_product_cards_category_id ON product_cards(category_id);
+CREATE INDEX idx_product_cards_vendor_id ON product_cards(vendor_id);
+CREATE INDEX idx_product_cards_price ON product_cards(price);
+
+-- Rebuild the card of the product row that was just written
+CREATE OR REPLACE FUNCTION refresh_product_card() RETURNS TRIGGER AS $$
+BEGIN
+    -- Stock moves on every order: skip those unless the in-stock flag flips
+    -- (image changes and renames only touch updated_at, so they still refresh)
+    IF TG_OP = 'UPDATE'
+            AND NEW.stock_quantity IS DISTINCT FROM OLD.stock_quantity
+            AND (NEW.stock_quantity > 0) = (OLD.stock_quantity > 0)
+            AND NEW.name IS NOT DISTINCT FROM OLD.name
+            AND NEW.price IS NOT DISTINCT FROM OLD.price
+            AND NEW.category_id IS NOT DISTINCT FROM OLD.category_id
+            AND NEW.vendor_id IS NOT DISTINCT FROM OLD.vendor_id THEN
+        RETURN NULL;
+    END IF;
+
+    INSERT INTO product_cards (product_id, name, price, image_url, category_id, category_name,
+                               vendor_id, store_name, in_stock, added_at)
+    SELECT NEW.id, NEW.name, NEW.price,
+           (SELECT i.image_url FROM product_image i WHERE i.product_id = NEW.id ORDER BY i.id LIMIT 1),
+           NEW.category_id, c.type, NEW.vendor_id, v.store_name, NEW.stock_quantity > 0, NEW.added_at
+    FROM vendors v
+    LEFT JOIN category c ON c.id = NEW.category_id
+    WHERE v.id = NEW.vendor_id
+    ON CONFLICT (product_id) DO UPDATE SET
+        name = EXCLUDED.name,
+        price = EXCLUDED.price,
+        image_url = EXCLUDED.image_url,
+        category_id = EXCLUDED.category_id,
+        category_name = EXCLUDED.category_name,
+        vendor_id = EXCLUDED.vendor_id,
+        store_name = EXCLUDED.store_name,
+        in_stock = EXCLUDED.in_stock,
+        added_at = EXCLUDED.added_at;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_products_refresh_card
+    AFTER INSERT OR UPDATE ON products
+    FOR EACH ROW EXECUTE FUNCTION refresh_product_card();
+
 -- ========================================
 -- TABLE: address
 -- ========================================
@@ -133,10 +311,14 @@ CREATE INDEX idx_address_user_id ON address(user_id);
 CREATE TABLE cart (
     id BIGSERIAL PRIMARY KEY,
     user_id BIGINT,
+    -- Last change to the cart's lines (kept by trg_cartitem_touch_cart), read by the sweeper
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
     CONSTRAINT fk_cart_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
-CREATE INDEX idx_cart_user_id ON cart(user_id);
+-- One cart per user (created with ON CONFLICT (user_id))
+CREATE UNIQUE INDEX uq_cart_user_id ON cart(user_id);
+CREATE INDEX idx_cart_updated_at ON cart(updated_at, id);
 
 -- ========================================
 -- TABLE: cartitem
@@ -150,9 +332,23 @@ CREATE TABLE cartitem (
     CONSTRAINT fk_cartitem_product FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
 );
 
-CREATE INDEX idx_cartitem_cart_id ON cartitem(cart_id);
+-- One line per product (the cart write-behind upserts on it)
+CREATE UNIQUE INDEX uq_cartitem_cart_product ON cartitem(cart_id, product_id);
 CREATE INDEX idx_cartitem_product_id ON cartitem(product_id);
 
+-- Touch the cart once per transaction (later rows find it already at NOW())
+CREATE OR REPLACE FUNCTION cartitem_touch_cart() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE cart SET updated_at = NOW()
+    WHERE id = COALESCE(NEW.cart_id, OLD.cart_id) AND updated_at < NOW();
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_cartitem_touch_cart
+    AFTER INSERT OR UPDATE OR DELETE ON cartitem
+    FOR EACH ROW EXECUTE FUNCTION cartitem_touch_cart();
+
 -- ========================================
 -- TABLE: orders
 -- ========================================
@@ -171,10 +367,11 @@ CREATE TABLE orders (
     CONSTRAINT fk_order_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
-CREATE INDEX idx_orders_user_id ON orders(user_id);
 CREATE INDEX idx_orders_status ON orders(status);
 CREATE INDEX idx_orders_payment_status ON orders(payment_status);
-CREATE INDEX idx_orders_created_at ON orders(created_at);
+-- Keyset pagination: (created_at, id) seek per user and across all orders
+CREATE INDEX idx_orders_user_created_id ON orders(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_orders_created_id ON orders(created_at DESC, id DESC);
 
 -- ========================================
 -- TABLE: orderitems
@@ -0,0 +1,162 @@
+package com.diddycart.common.cache;
+
+import com.diddycart.modules.payment.models.PaymentStatus;
+import com.diddycart.modules.products.dto.CachedProductPage;
+import com.diddycart.modules.products.dto.ProductCardResponse;
+import com.diddycart.modules.products.dto.ProductResponse;
+import com.diddycart.modules.sales.dto.OrderItemResponse;
+import com.diddycart.modules.sales.dto.OrderResponse;
+import com.diddycart.modules.sales.models.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cache value formats side by side: encode/decode time per payload here, bytes on the wire
+// printed once per trial ("bytes: ..." lines in the output).
+//
+// Formats are the ones a cache policy can pick (json, smile, each optionally with LZ4 at
+// the default 4096-byte threshold); payloads mirror the products, product_pages and
+// orders caches with realistic field sizes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    private static final int COMPRESS_ABOVE = 4096;
+
+    @Param({ "product", "productPage", "order" })
+    public String payload;
+
+    @Param({ "json", "json+lz4", "smile", "smile+lz4" })
+    public String format;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        serializer = format.startsWith("smile") ? new SmileRedisSerializer(json) : json;
+        if (format.endsWith("+lz4")) {
+            serializer = new Lz4RedisSerializer(serializer, COMPRESS_ABOVE);
+        }
+
+        Random random = new Random(42);
+        value = switch (payload) {
+            case "product" -> product(random, 1);
+            case "productPage" -> productPage(random);
+            case "order" -> order(random);
+            default -> throw new IllegalArgumentException(payload);
+        };
+        encoded = serializer.serialize(value);
+    }
+
+    @TearDown(Level.Trial)
+    public void reportSize() {
+        System.out.printf("%nbytes: payload=%s format=%s size=%d%n", payload, format, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+
+    // Product detail snapshot (products cache)
+    private static ProductResponse product(Random random, long id) {
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        product.setName("Wireless Noise Cancelling Headphones " + random.nextInt(1000));
+        product.setDescription(text(random, 400));
+        product.setPrice(BigDecimal.valueOf(random.nextInt(100_000), 2));
+        product.setStockQuantity(random.nextInt(500));
+        product.setCategoryName("Electronics");
+        product.setVendorStoreName("Acme Audio Store");
+        List<String> images = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            images.add("https://cdn.diddycart.com/products/" + id + "/image-" + i + ".jpg");
+        }
+        product.setImageUrls(images);
+        return product;
+    }
+
+    // One 20-card listing page (product_pages cache)
+    private static CachedProductPage<ProductCardResponse> productPage(Random random) {
+        List<ProductCardResponse> cards = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            ProductCardResponse card = new ProductCardResponse();
+            card.setId(id);
+            card.setName("Running Shoe Model " + random.nextInt(1000));
+            card.setPrice(BigDecimal.valueOf(random.nextInt(100_000), 2));
+            card.setImageUrl("https://cdn.diddycart.com/products/" + id + "/image-0.jpg");
+            card.setCategoryName("Footwear");
+            card.setVendorStoreName("Stride Sports");
+            card.setInStock(random.nextBoolean());
+            cards.add(card);
+        }
+        return new CachedProductPage<>(cards, 4_812);
+    }
+
+    // Order with 8 lines (orders cache)
+    private static OrderResponse order(Random random) {
+        OrderResponse order = new OrderResponse();
+        order.setOrderId(98_765L);
+        order.setUserId(4_321L);
+        order.setOrderDate(Instant.parse("2026-01-31T10:15:30Z"));
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setPaymentStatus(PaymentStatus.PENDING);
+        order.setShippingAddress("221B Baker Street, Near Regent's Park, Mumbai, Maharashtra - 400001");
+        List<OrderItemResponse> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (long id = 1; id <= 8; id++) {
+            OrderItemResponse item = new OrderItemResponse();
+            item.setProductId(id);
+            item.setProductName("Stainless Steel Water Bottle " + random.nextInt(1000));
+            item.setPrice(BigDecimal.valueOf(random.nextInt(100_000), 2));
+            item.setQuantity(1 + random.nextInt(3));
+            item.setSubTotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            total = total.add(item.getSubTotal());
+            items.add(item);
+        }
+        order.setItems(items);
+        order.setTotalAmount(total);
+        return order;
+    }
+
+    private static String text(Random random, int length) {
+        String[] words = { "premium", "comfort", "battery", "wireless", "design", "sound", "lightweight",
+                "durable", "travel", "bass", "foldable", "hours", "charging", "quality" };
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        return text.toString().trim();
+    }
+}
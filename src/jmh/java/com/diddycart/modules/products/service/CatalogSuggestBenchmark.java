@@ -0,0 +1,202 @@
+package com.diddycart.modules.products.service;
+
+import com.diddycart.modules.products.dto.SuggestionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Typeahead lookup cost: the in-memory trie against the query-based suggest it replaced
+// (the frontend calling /search on every keystroke, i.e. the ranked full-text query).
+//
+// trie: synthetic catalog of catalogSize products, no database needed.
+// trieOnDatabase / fullTextQuery: the same prefixes over a real catalog, run with
+//   -Ddiddycart.bench.jdbc-url=jdbc:postgresql://... (plus .user / .password); the
+//   database needs migrations 001 and 005 (search_vector, pg_trgm, product_cards).
+//   Without the URL these two fail in setup and the rest still runs.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogSuggestBenchmark {
+
+    private static final int PREFIXES = 1024;
+
+    // The query /search ran for a keyword, first page of 10 (its count query is not included)
+    private static final String FULL_TEXT_QUERY = "SELECT c.* FROM products p "
+            + "JOIN product_cards c ON c.product_id = p.id "
+            + "WHERE p.search_vector @@ to_tsquery('simple', ?) OR p.name % ? "
+            + "ORDER BY ts_rank_cd(p.search_vector, to_tsquery('simple', ?)) DESC, "
+            + "similarity(p.name, ?) DESC, p.id DESC LIMIT 10";
+
+    private static final String[] BRANDS = { "Acme", "Zenith", "Nova", "Orbit", "Vertex", "Lumen", "Pioneer",
+            "Stride", "Harbor", "Summit", "Echo", "Atlas" };
+    private static final String[] ADJECTIVES = { "Wireless", "Portable", "Premium", "Classic", "Smart", "Compact",
+            "Ultra", "Organic", "Stainless", "Ergonomic", "Waterproof", "Foldable", "Heavy Duty", "Mini" };
+    private static final String[] NOUNS = { "Headphones", "Speaker", "Running Shoes", "Water Bottle", "Backpack",
+            "Desk Lamp", "Keyboard", "Mouse", "Yoga Mat", "Coffee Maker", "Blender", "Jacket", "Watch",
+            "Phone Case", "Router", "Charger", "Notebook", "Sunglasses", "Tent", "Kettle" };
+    private static final String[] CATEGORIES = { "Electronics", "Footwear", "Kitchen", "Sports", "Fashion",
+            "Home", "Office", "Outdoors", "Accessories", "Fitness" };
+
+    // Synthetic catalog, popularity skewed towards a few products like real sales
+    @State(Scope.Benchmark)
+    public static class SyntheticCatalog {
+
+        @Param({ "10000", "100000" })
+        public int catalogSize;
+
+        final CatalogSuggestIndex index = new CatalogSuggestIndex();
+        final List<String> prefixes = new ArrayList<>();
+        int next;
+
+        @Setup(Level.Trial)
+        public void build() {
+            Random random = new Random(42);
+            Map<Long, String> names = new HashMap<>();
+            Map<Long, Long> categories = new HashMap<>();
+            Map<Long, String> categoryTypes = new HashMap<>();
+            Map<Long, Long> unitsSold = new HashMap<>();
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                categoryTypes.put((long) i + 1, CATEGORIES[i]);
+            }
+            for (long id = 1; id <= catalogSize; id++) {
+                String name = BRANDS[random.nextInt(BRANDS.length)] + " "
+                        + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                        + NOUNS[random.nextInt(NOUNS.length)] + " " + (100 + random.nextInt(900));
+                names.put(id, name);
+                categories.put(id, 1L + random.nextInt(CATEGORIES.length));
+                if (random.nextInt(10) == 0) {
+                    unitsSold.put(id, (long) Math.pow(random.nextInt(100), 2));
+                }
+            }
+            index.rebuildFrom(names, categories, categoryTypes, unitsSold);
+            prefixes.addAll(samplePrefixes(new ArrayList<>(names.values()), random));
+        }
+
+        String nextPrefix() {
+            return prefixes.get(next++ & (PREFIXES - 1));
+        }
+    }
+
+    // A real catalog: the trie built from its products and the old query run against it
+    @State(Scope.Benchmark)
+    public static class DatabaseCatalog {
+
+        final CatalogSuggestIndex index = new CatalogSuggestIndex();
+        final List<String> prefixes = new ArrayList<>();
+        Connection connection;
+        PreparedStatement search;
+        int next;
+
+        @Setup(Level.Trial)
+        public void connect() throws SQLException {
+            String url = System.getProperty("diddycart.bench.jdbc-url");
+            if (url == null || url.isBlank()) {
+                throw new IllegalStateException("Set -Ddiddycart.bench.jdbc-url to benchmark against Postgres");
+            }
+            connection = DriverManager.getConnection(url, System.getProperty("diddycart.bench.user"),
+                    System.getProperty("diddycart.bench.password"));
+
+            Map<Long, String> names = new HashMap<>();
+            Map<Long, Long> categories = new HashMap<>();
+            Map<Long, String> categoryTypes = new HashMap<>();
+            try (Statement statement = connection.createStatement()) {
+                try (ResultSet rs = statement.executeQuery("SELECT id, name, category_id FROM products")) {
+                    while (rs.next()) {
+                        names.put(rs.getLong(1), rs.getString(2));
+                        long categoryId = rs.getLong(3);
+                        if (!rs.wasNull()) {
+                            categories.put(rs.getLong(1), categoryId);
+                        }
+                    }
+                }
+                try (ResultSet rs = statement.executeQuery("SELECT id, type FROM category")) {
+                    while (rs.next()) {
+                        categoryTypes.put(rs.getLong(1), rs.getString(2));
+                    }
+                }
+            }
+            if (names.isEmpty()) {
+                throw new IllegalStateException("No products in " + url);
+            }
+            index.rebuildFrom(names, categories, categoryTypes, Map.of());
+            prefixes.addAll(samplePrefixes(new ArrayList<>(names.values()), new Random(42)));
+            search = connection.prepareStatement(FULL_TEXT_QUERY);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+
+        String nextPrefix() {
+            return prefixes.get(next++ & (PREFIXES - 1));
+        }
+    }
+
+    @Benchmark
+    public List<SuggestionResponse> trie(SyntheticCatalog catalog) {
+        return catalog.index.lookup(catalog.nextPrefix(), CatalogSuggestIndex.MAX_SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<SuggestionResponse> trieOnDatabase(DatabaseCatalog catalog) {
+        return catalog.index.lookup(catalog.nextPrefix(), CatalogSuggestIndex.MAX_SUGGESTIONS);
+    }
+
+    @Benchmark
+    public int fullTextQuery(DatabaseCatalog catalog) throws SQLException {
+        String prefix = catalog.nextPrefix();
+        String query = ProductService.toPrefixQuery(prefix);
+        catalog.search.setString(1, query);
+        catalog.search.setString(2, prefix);
+        catalog.search.setString(3, query);
+        catalog.search.setString(4, prefix);
+        int rows = 0;
+        try (ResultSet rs = catalog.search.executeQuery()) {
+            while (rs.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    // What a shopper types: the first 1-6 characters of a word of a name, normalized
+    private static List<String> samplePrefixes(List<String> names, Random random) {
+        List<String> prefixes = new ArrayList<>(PREFIXES);
+        while (prefixes.size() < PREFIXES) {
+            String[] words = CatalogSuggestIndex.normalize(names.get(random.nextInt(names.size()))).split(" ");
+            String word = words[random.nextInt(words.length)];
+            if (!word.isEmpty()) {
+                prefixes.add(word.substring(0, Math.min(word.length(), 1 + random.nextInt(6))));
+            }
+        }
+        return prefixes;
+    }
+}
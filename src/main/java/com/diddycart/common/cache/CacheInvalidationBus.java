@@ -0,0 +1,81 @@
+package com.diddycart.common.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
+
+// Broadcasts L1 invalidations to every app node over Redis pub/sub.
+// Message format: "<originNodeId>|<cacheName>|<E|M|C>|<key>"
+// (E = evict key, M = evict the newline-separated keys, C = clear cache)
+public class CacheInvalidationBus {
+
+    public static final String CHANNEL = "diddycart:cache:invalidation";
+
+    private static final String EVICT = "E";
+    private static final String EVICT_MANY = "M";
+    private static final String CLEAR = "C";
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    // Unique per JVM so a node can ignore its own messages
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate, RedisCircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    // Tell other nodes to drop one key from their L1
+    public void publishEvict(String cacheName, String key) {
+        send(nodeId + "|" + cacheName + "|" + EVICT + "|" + key);
+    }
+
+    // Tell other nodes to drop several keys from their L1 in one message
+    public void publishEvictAll(String cacheName, Collection<String> keys) {
+        send(nodeId + "|" + cacheName + "|" + EVICT_MANY + "|" + String.join("\n", keys));
+    }
+
+    // Tell other nodes to drop a whole cache from their L1
+    public void publishClear(String cacheName) {
+        send(nodeId + "|" + cacheName + "|" + CLEAR + "|");
+    }
+
+    // Apply a message received from the channel to the local L1
+    public void receive(byte[] body, TwoLevelCacheManager cacheManager) {
+        String[] parts = new String(body, StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        if (CLEAR.equals(parts[2])) {
+            cacheManager.clearLocal(parts[1]);
+        } else if (EVICT_MANY.equals(parts[2])) {
+            for (String key : parts[3].split("\n")) {
+                cacheManager.evictLocal(parts[1], key);
+            }
+        } else {
+            cacheManager.evictLocal(parts[1], parts[3]);
+        }
+    }
+
+    private void send(String message) {
+        // Redis is down: the change is replayed as an eviction once it is back
+        if (!circuitBreaker.allowRequest()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+            circuitBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            // Other nodes fall back to the L1 TTL if a broadcast is lost
+            circuitBreaker.recordFailure(e);
+            log.warn("Cache invalidation broadcast failed: {}", e.getMessage());
+        }
+    }
+}
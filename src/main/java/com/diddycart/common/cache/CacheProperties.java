@@ -0,0 +1,182 @@
+package com.diddycart.common.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Tunables for the cache layer, bound from "diddycart.cache.*" in application.yaml
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "diddycart.cache")
+public class CacheProperties {
+
+    // In-process L1 sitting in front of Redis
+    private Local local = new Local();
+
+    // Single-flight / lease / early refresh settings
+    private Stampede stampede = new Stampede();
+
+    // When to stop talking to Redis and when to try again
+    private Breaker breaker = new Breaker();
+
+    // Startup warm-up of the hottest catalog entries
+    private Warmup warmup = new Warmup();
+
+    // Bloom filters + negative cache for lookups of missing IDs
+    private Existence existence = new Existence();
+
+    // Live stock counters kept apart from the product snapshots
+    private Stock stock = new Stock();
+
+    // HTTP caching of public catalog responses (browsers, reverse proxies)
+    private Http http = new Http();
+
+    // Live carts as Redis hashes, written behind to Postgres
+    private Cart cart = new Cart();
+
+    // Log one in N cache operations at DEBUG (metrics carry the full picture)
+    private int logSampleRate = 100;
+
+    // Policy for caches not listed under "policies"
+    private Policy defaults = new Policy();
+
+    // Per-cache TTL, serializer and compression (keyed by cache name)
+    private Map<String, Policy> policies = new HashMap<>();
+
+    // Resolve the policy for a cache name
+    public Policy policyFor(String cacheName) {
+        return policies.getOrDefault(cacheName, defaults);
+    }
+
+    @Data
+    public static class Policy {
+        private Duration ttl = Duration.ofHours(1);
+
+        private Format format = Format.JSON;
+
+        // LZ4-compress values of at least this many bytes (0 = never)
+        private int compressAbove = 0;
+    }
+
+    // Value encodings available to a cache policy
+    public enum Format {
+        JSON, // Jackson JSON with embedded class names (human readable in redis-cli)
+        SMILE // Binary JSON, same data model, smaller and faster to parse
+    }
+
+    @Data
+    public static class Stampede {
+        // How long a node may hold the cross-node load lease for a key
+        private Duration leaseTtl = Duration.ofSeconds(5);
+
+        // How long other nodes wait for the lease holder's value before loading themselves
+        private Duration leaseWait = Duration.ofSeconds(2);
+
+        // Redis polling interval while waiting on another node's load
+        private Duration pollInterval = Duration.ofMillis(50);
+
+        // Early refresh aggressiveness (1.0 = standard, higher refreshes earlier)
+        private double earlyRefreshBeta = 1.0;
+    }
+
+    @Data
+    public static class Breaker {
+        // Consecutive Redis failures (timeouts, refused connections) before the breaker opens
+        private int failureThreshold = 5;
+
+        // Minimum time Redis is skipped before the first recovery probe
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        // Milliseconds between recovery probes while open (read by the @Scheduled probe)
+        private long probeInterval = 2000;
+
+        // Keys changed while Redis was skipped, replayed as evictions on recovery
+        // (beyond this the affected caches are cleared instead)
+        private int maxPendingEvictions = 10_000;
+    }
+
+    @Data
+    public static class Warmup {
+        private boolean enabled = true;
+
+        // How many products (and vendors) to preload
+        private int topN = 500;
+
+        // Order history window used to rank products
+        private Duration lookback = Duration.ofDays(7);
+
+        // Entries loaded in parallel per batch (keep below the Hikari pool size)
+        private int batchSize = 10;
+
+        // Readiness is held at most this long, whatever is left stays cold
+        private Duration budget = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Existence {
+        private boolean enabled = true;
+
+        // Target false-positive rate (1% = ~9.6 bits per ID, 0.1% = ~14.4 bits per ID)
+        private double fpp = 0.01;
+
+        // IDs this close to the max are left out (their rows may still be committing)
+        private long watermarkMargin = 1000;
+
+        // Milliseconds between rebuilds (read by the @Scheduled rebuild)
+        private long rebuildInterval = 3_600_000;
+    }
+
+    @Data
+    public static class Stock {
+        // Counters are re-read from Postgres at least this often (bounds any drift)
+        private Duration ttl = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Http {
+        // Cache-Control max-age: how long clients may reuse a response without asking
+        private Duration maxAge = Duration.ofSeconds(30);
+
+        // After max-age, serve the stale copy while revalidating (If-None-Match) in the background
+        private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Cart {
+        // Idle carts leave Redis after this long (Postgres keeps them)
+        private Duration ttl = Duration.ofDays(7);
+
+        // Guest carts (Redis only) are gone this long after their last change
+        private Duration guestTtl = Duration.ofDays(3);
+
+        // Milliseconds between write-behind flushes (read by the @Scheduled flusher),
+        // also the most a cart can lose if Redis drops it before the next flush
+        private long flushInterval = 1000;
+
+        // Carts written per flush transaction
+        private int flushBatchSize = 500;
+
+        // Lines of carts untouched this long are deleted by the sweeper (never less than ttl)
+        private Duration abandonAfter = Duration.ofDays(30);
+
+        // When the sweeper runs (read by the @Scheduled sweeper)
+        private String sweepCron = "0 15 4 * * *";
+
+        // Carts emptied per sweep statement
+        private int sweepBatchSize = 500;
+    }
+
+    @Data
+    public static class Local {
+        // Max entries kept on heap per cache
+        private long maxSize = 10_000;
+
+        // Short TTL bounds staleness if an invalidation message is ever lost
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+}
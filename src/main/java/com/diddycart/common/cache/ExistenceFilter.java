@@ -0,0 +1,202 @@
+package com.diddycart.common.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Shields Postgres from lookups of IDs that do not exist (e.g. bots enumerating IDs).
+//
+// Per entity, a Bloom filter of every ID up to a watermark (max ID at build time minus a
+// safety margin for rows still being committed) answers "definitely absent" from memory.
+// IDs above the watermark were created since the last build and always go to the DB.
+// Lookups that pass the filter but still miss (false positives, deleted rows) are
+// remembered for a short TTL in the shared "missing_ids" cache.
+// Filters are rebuilt at startup and periodically, which also drops deleted IDs.
+@Component
+public class ExistenceFilter {
+
+    public static final String MISSING_CACHE = "missing_ids";
+
+    private static final Logger log = LoggerFactory.getLogger(ExistenceFilter.class);
+
+    // Entities with a filter, backed by the table holding their ID column
+    public enum Entity {
+        PRODUCTS("products"),
+        VENDORS("vendors"),
+        ORDERS("orders");
+
+        private final String table;
+
+        Entity(String table) {
+            this.table = table;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Entity, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    // Memory and expected false-positive rate per entity
+    @PostConstruct
+    public void registerMetrics() {
+        for (Entity entity : Entity.values()) {
+            String tag = tagOf(entity);
+            Gauge.builder("diddycart.cache.existence.bytes", this, f -> f.bytes(entity))
+                    .description("Memory used by the existence filter")
+                    .tag("entity", tag)
+                    .register(meterRegistry);
+            Gauge.builder("diddycart.cache.existence.fpp", this, f -> f.fpp(entity))
+                    .description("Expected false-positive rate of the existence filter")
+                    .tag("entity", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    // Could this ID exist? false = definitely not (memory only, no I/O)
+    public boolean mightExist(Entity entity, Long id) {
+        if (id == null || id <= 0) {
+            return false;
+        }
+        Snapshot snapshot = snapshots.get(entity);
+        if (snapshot == null || id > snapshot.watermark() || snapshot.filter().mightContain(id)) {
+            return true;
+        }
+        meterRegistry.counter("diddycart.cache.existence.rejected", "entity", tagOf(entity)).increment();
+        return false;
+    }
+
+    // Convenience for SpEL, e.g. @Cacheable(condition = "@existenceFilter.mightExist('products', #id)")
+    public boolean mightExist(String entity, Long id) {
+        return mightExist(Entity.valueOf(entity.toUpperCase(Locale.ROOT)), id);
+    }
+
+    // Was this ID looked up recently and found missing?
+    public boolean isKnownMissing(Entity entity, Long id) {
+        boolean missing = missingCache().get(missingKey(entity, id)) != null;
+        if (missing) {
+            meterRegistry.counter("diddycart.cache.existence.negative_hits", "entity", tagOf(entity)).increment();
+        }
+        return missing;
+    }
+
+    // Remember a failed lookup (or a delete) for the negative-cache TTL
+    public void recordMissing(Entity entity, Long id) {
+        missingCache().put(missingKey(entity, id), Boolean.TRUE);
+    }
+
+    // A new row may reuse an ID probed before it existed, drop the negative entry
+    public void recordCreated(Entity entity, Long id) {
+        missingCache().evict(missingKey(entity, id));
+    }
+
+    // Build the filters before the warm-up and before the node takes traffic
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    // Periodic rebuild picks up new IDs and forgets deleted ones
+    @Scheduled(fixedDelayString = "${diddycart.cache.existence.rebuild-interval:3600000}",
+            initialDelayString = "${diddycart.cache.existence.rebuild-interval:3600000}")
+    public void rebuild() {
+        if (!cacheProperties.getExistence().isEnabled()) {
+            return;
+        }
+        for (Entity entity : Entity.values()) {
+            try {
+                build(entity);
+            } catch (RuntimeException e) {
+                // Keep the previous filter (or none, which lets everything through)
+                log.warn("Existence filter build failed | Entity: {} | {}", tagOf(entity), e.getMessage());
+            }
+        }
+    }
+
+    private void build(Entity entity) {
+        CacheProperties.Existence settings = cacheProperties.getExistence();
+        long start = System.currentTimeMillis();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Snapshot snapshot = readOnly.execute(status -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + entity.table, Long.class);
+            long watermark = Math.max(0, maxId - settings.getWatermarkMargin());
+            Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + entity.table + " WHERE id <= ?",
+                    Long.class, watermark);
+
+            BloomFilter filter = BloomFilter.create(count, settings.getFpp());
+            // Streamed with a fetch size (inside a transaction) so large tables don't land on heap
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(10_000);
+            streaming.query("SELECT id FROM " + entity.table + " WHERE id <= ?",
+                    (RowCallbackHandler) rs -> filter.put(rs.getLong(1)), watermark);
+            return new Snapshot(filter, watermark);
+        });
+
+        snapshots.put(entity, snapshot);
+        BloomFilter filter = snapshot.filter();
+        log.info("Existence filter built | Entity: {} | IDs: {} | Watermark: {} | Memory: {} KB | Hashes: {} | FPP: {} | Took: {}ms",
+                tagOf(entity), filter.insertions(), snapshot.watermark(), filter.sizeInBytes() / 1024,
+                filter.hashCount(), String.format(Locale.ROOT, "%.4f", filter.expectedFpp()),
+                System.currentTimeMillis() - start);
+    }
+
+    private double bytes(Entity entity) {
+        Snapshot snapshot = snapshots.get(entity);
+        return snapshot != null ? snapshot.filter().sizeInBytes() : 0;
+    }
+
+    private double fpp(Entity entity) {
+        Snapshot snapshot = snapshots.get(entity);
+        return snapshot != null ? snapshot.filter().expectedFpp() : 0;
+    }
+
+    private Cache missingCache() {
+        return cacheManager.getCache(MISSING_CACHE);
+    }
+
+    private String missingKey(Entity entity, Long id) {
+        return tagOf(entity) + ":" + id;
+    }
+
+    private String tagOf(Entity entity) {
+        return entity.table;
+    }
+
+    // Filter plus the highest ID it covers
+    private record Snapshot(BloomFilter filter, long watermark) {
+    }
+}
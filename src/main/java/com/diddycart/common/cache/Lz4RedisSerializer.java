@@ -0,0 +1,66 @@
+package com.diddycart.common.cache;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+
+// Wraps a value serializer and LZ4-compresses payloads above a size threshold.
+// Compressed frame: [MARKER][original length (4 bytes)][lz4 block].
+// Smaller payloads are stored as-is; JSON and Smile never start with MARKER,
+// so both forms can be told apart on read.
+public class Lz4RedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MARKER = 0x01;
+    private static final int HEADER_LENGTH = 5;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestJavaInstance();
+
+    private final RedisSerializer<Object> delegate;
+    private final int threshold;
+    private final LZ4Compressor compressor = LZ4.fastCompressor();
+    private final LZ4SafeDecompressor decompressor = LZ4.safeDecompressor();
+
+    public Lz4RedisSerializer(RedisSerializer<Object> delegate, int threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] raw = delegate.serialize(value);
+        if (raw == null || raw.length < threshold) {
+            return raw;
+        }
+
+        byte[] compressed = compressor.compress(raw);
+        // Not worth it for payloads that don't shrink
+        if (compressed.length + HEADER_LENGTH >= raw.length) {
+            return raw;
+        }
+
+        return ByteBuffer.allocate(HEADER_LENGTH + compressed.length)
+                .put(MARKER)
+                .putInt(raw.length)
+                .put(compressed)
+                .array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length < HEADER_LENGTH || bytes[0] != MARKER) {
+            return delegate.deserialize(bytes);
+        }
+
+        int originalLength = ByteBuffer.wrap(bytes, 1, 4).getInt();
+        try {
+            byte[] raw = decompressor.decompress(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, originalLength);
+            return delegate.deserialize(raw);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not decompress cache value", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.diddycart.common.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.concurrent.TimeUnit;
+
+// Wraps a value serializer and records the encoded size of every value written to Redis,
+// plus encode/decode time. Tagged by cache and format, these give a live side-by-side
+// comparison of bytes-on-wire and CPU cost for each serializer policy.
+public class MeteredRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegate;
+    private final DistributionSummary valueSize;
+    private final Timer encodeTimer;
+    private final Timer decodeTimer;
+
+    public MeteredRedisSerializer(RedisSerializer<Object> delegate, String cacheName, String format,
+            MeterRegistry registry) {
+        this.delegate = delegate;
+        this.valueSize = DistributionSummary.builder("diddycart.cache.value.size")
+                .tag("cache", cacheName)
+                .tag("format", format)
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.encodeTimer = Timer.builder("diddycart.cache.serialization")
+                .tag("cache", cacheName)
+                .tag("format", format)
+                .tag("operation", "encode")
+                .register(registry);
+        this.decodeTimer = Timer.builder("diddycart.cache.serialization")
+                .tag("cache", cacheName)
+                .tag("format", format)
+                .tag("operation", "decode")
+                .register(registry);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        long start = System.nanoTime();
+        byte[] bytes = delegate.serialize(value);
+        encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (bytes != null) {
+            valueSize.record(bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        long start = System.nanoTime();
+        Object value = delegate.deserialize(bytes);
+        decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return value;
+    }
+}
@@ -0,0 +1,159 @@
+package com.diddycart.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+// A Decorator for Cache that records hit/miss, load latency, put and evict metrics.
+// Meters are created once per cache so the hot path is a counter increment;
+// logging is sampled at DEBUG only.
+public class MetricsCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsCache.class);
+
+    private final Cache delegate;
+    private final int logSampleRate;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter puts;
+    private final Counter evictions;
+    private final Counter clears;
+    private final Timer loads;
+
+    public MetricsCache(Cache delegate, MeterRegistry registry, int logSampleRate) {
+        this.delegate = delegate;
+        this.logSampleRate = Math.max(1, logSampleRate);
+
+        String name = delegate.getName();
+        this.hits = Counter.builder("diddycart.cache.gets")
+                .tag("cache", name).tag("result", "hit")
+                .description("Cache lookups that found a value")
+                .register(registry);
+        this.misses = Counter.builder("diddycart.cache.gets")
+                .tag("cache", name).tag("result", "miss")
+                .description("Cache lookups that found nothing")
+                .register(registry);
+        this.puts = Counter.builder("diddycart.cache.puts")
+                .tag("cache", name)
+                .register(registry);
+        this.evictions = Counter.builder("diddycart.cache.evictions")
+                .tag("cache", name)
+                .register(registry);
+        this.clears = Counter.builder("diddycart.cache.clears")
+                .tag("cache", name)
+                .register(registry);
+        this.loads = Timer.builder("diddycart.cache.load")
+                .tag("cache", name)
+                .description("Time spent computing values on a cache miss")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // Get value from cache
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = delegate.get(key);
+        recordGet(key, value != null);
+        return value;
+    }
+
+    // Get value from cache by key and type
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = delegate.get(key, type);
+        recordGet(key, value != null);
+        return value;
+    }
+
+    // Get value from cache by key and valueLoader, timing the loader on a miss
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loaded = { false };
+        T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            return loads.recordCallable(valueLoader);
+        });
+        recordGet(key, !loaded[0]);
+        return value;
+    }
+
+    // Put value into cache
+    @Override
+    public void put(Object key, Object value) {
+        puts.increment();
+        sample("PUT", key);
+        delegate.put(key, value);
+    }
+
+    // Evict value from cache
+    @Override
+    public void evict(Object key) {
+        evictions.increment();
+        sample("EVICT", key);
+        delegate.evict(key);
+    }
+
+    // Clear cache
+    @Override
+    public void clear() {
+        clears.increment();
+        log.debug("CACHE CLEAR | Cache: {}", getName());
+        delegate.clear();
+    }
+
+    // Standard Delegation Methods
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    // Get native cache
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    // Put value into cache if absent
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        puts.increment();
+        return delegate.putIfAbsent(key, value);
+    }
+
+    // Evict value from cache if present
+    @Override
+    public boolean evictIfPresent(Object key) {
+        evictions.increment();
+        return delegate.evictIfPresent(key);
+    }
+
+    // Invalidate cache
+    @Override
+    public boolean invalidate() {
+        clears.increment();
+        return delegate.invalidate();
+    }
+
+    private void recordGet(Object key, boolean hit) {
+        if (hit) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        sample(hit ? "HIT" : "MISS", key);
+    }
+
+    // Log roughly one in logSampleRate operations, and only when DEBUG is on
+    private void sample(String operation, Object key) {
+        if (log.isDebugEnabled() && ThreadLocalRandom.current().nextInt(logSampleRate) == 0) {
+            log.debug("CACHE {} | Cache: {} | Key: {}", operation, getName(), key);
+        }
+    }
+}
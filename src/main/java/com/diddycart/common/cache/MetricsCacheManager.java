@@ -0,0 +1,37 @@
+package com.diddycart.common.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// A Decorator for CacheManager that returns MetricsCache instances
+public class MetricsCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final MeterRegistry registry;
+    private final int logSampleRate;
+    private final ConcurrentMap<String, MetricsCache> caches = new ConcurrentHashMap<>();
+
+    public MetricsCacheManager(CacheManager delegate, MeterRegistry registry, int logSampleRate) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.logSampleRate = logSampleRate;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> {
+            Cache cache = delegate.getCache(n);
+            return cache != null ? new MetricsCache(cache, registry, logSampleRate) : null;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
@@ -0,0 +1,110 @@
+package com.diddycart.common.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Circuit breaker for Redis. After a run of consecutive failures (timeouts, connection
+// errors) it opens and callers skip Redis entirely - the cache layer serves from L1 or
+// goes straight to Postgres. While open, a scheduled PING probes Redis and closes the
+// breaker once it answers, then recovery listeners replay what was missed.
+@Component
+public class RedisCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean open = false;
+    private volatile long openedAt = 0;
+
+    // Expose the breaker state (0 = closed, 1 = open)
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("diddycart.cache.breaker.state", this, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("Redis circuit breaker state (0 = closed, 1 = open)")
+                .register(meterRegistry);
+    }
+
+    // Should this call go to Redis at all?
+    public boolean allowRequest() {
+        return !open;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    // A Redis call succeeded
+    public void recordSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    // A Redis call failed, open the breaker once the threshold is reached
+    public void recordFailure(Exception e) {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (!open && failures >= cacheProperties.getBreaker().getFailureThreshold()) {
+            open = true;
+            openedAt = System.currentTimeMillis();
+            meterRegistry.counter("diddycart.cache.breaker.transitions", "state", "open").increment();
+            log.warn("Redis circuit breaker OPEN after {} failures: {}", failures, e.getMessage());
+        }
+    }
+
+    // Called once Redis is back, e.g. to replay evictions missed during the outage
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    // Probe Redis while the breaker is open and close it when Redis answers again
+    @Scheduled(fixedDelayString = "${diddycart.cache.breaker.probe-interval:2000}")
+    public void probe() {
+        if (!open || System.currentTimeMillis() - openedAt < cacheProperties.getBreaker().getOpenDuration().toMillis()) {
+            return;
+        }
+
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.ping();
+        } catch (Exception e) {
+            openedAt = System.currentTimeMillis();
+            log.debug("Redis still unavailable: {}", e.getMessage());
+            return;
+        }
+
+        consecutiveFailures.set(0);
+        open = false;
+        meterRegistry.counter("diddycart.cache.breaker.transitions", "state", "closed").increment();
+        log.info("Redis circuit breaker CLOSED, Redis is reachable again");
+
+        for (Runnable listener : recoveryListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.warn("Redis recovery listener failed: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.diddycart.common.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+// Compact binary (Smile) cache serializer. Same data model as the JSON serializer
+// (class names embedded for non-final types, so any DTO round-trips) but with binary field/number encoding
+// and back-referenced property names, which shrinks list-heavy DTOs considerably.
+// Payloads without the Smile header (entries written as JSON before a cache was
+// switched over) are handed to the JSON fallback so a policy change never breaks reads.
+public class SmileRedisSerializer implements RedisSerializer<Object> {
+
+    // Every Smile document starts with ":)\n"
+    private static final byte[] SMILE_HEADER = { ':', ')', '\n' };
+
+    private final ObjectMapper mapper;
+    private final RedisSerializer<Object> jsonFallback;
+
+    public SmileRedisSerializer(RedisSerializer<Object> jsonFallback) {
+        this.jsonFallback = jsonFallback;
+
+        // Only our DTOs and JDK value types may be materialized from the cache
+        BasicPolymorphicTypeValidator typeValidator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.diddycart.")
+                .allowIfSubType("java.")
+                .build();
+
+        this.mapper = SmileMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .activateDefaultTyping(typeValidator, ObjectMapper.DefaultTyping.NON_FINAL,
+                        JsonTypeInfo.As.PROPERTY)
+                .build();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new SerializationException("Could not write Smile: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (!isSmile(bytes)) {
+            return jsonFallback.deserialize(bytes);
+        }
+        try {
+            return mapper.readValue(bytes, Object.class);
+        } catch (Exception e) {
+            throw new SerializationException("Could not read Smile: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean isSmile(byte[] bytes) {
+        return bytes.length >= SMILE_HEADER.length
+                && bytes[0] == SMILE_HEADER[0]
+                && bytes[1] == SMILE_HEADER[1]
+                && bytes[2] == SMILE_HEADER[2];
+    }
+}
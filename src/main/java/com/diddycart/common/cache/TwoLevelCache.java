@@ -0,0 +1,535 @@
+package com.diddycart.common.cache;
+
+import com.diddycart.common.infrastructure.DistributedLockService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Near cache: a bounded in-process L1 (Caffeine) in front of the shared Redis L2.
+// Reads are served from heap when possible; every write goes to Redis first,
+// then the local copy is refreshed and the other nodes are told to drop theirs.
+//
+// Loads through get(key, loader) (i.e. @Cacheable(sync = true)) are stampede-protected:
+// concurrent misses on one node share a single in-flight load, and across nodes a short
+// Redis lease lets one node compute while the others wait for its result. Caches with a
+// registered refresher also recompute hot keys in the background shortly before expiry
+// (probabilistic early expiration, weighted by how long the value took to compute).
+//
+// Redis is optional: every remote call goes through the circuit breaker. While it is open
+// the cache runs on L1 alone (misses go to the loader / Postgres) and remembers which keys
+// changed, so they can be evicted from Redis and the other nodes once it is back.
+public class TwoLevelCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    // Keys per DEL command in a bulk eviction
+    private static final int BULK_DELETE_CHUNK = 500;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final DistributedLockService lockService;
+    private final CacheProperties.Stampede stampede;
+    private final Duration ttl;
+    private final Executor refreshExecutor;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final int maxPendingEvictions;
+    private final StringRedisTemplate redisTemplate;
+
+    // Keys written or evicted while Redis was unreachable, replayed on recovery
+    private final Set<String> pendingEvictions = ConcurrentHashMap.newKeySet();
+    private volatile boolean pendingClear = false;
+
+    // Loads currently running on this node, keyed by local key
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // When each locally computed entry expires in Redis and how long it took to compute
+    private final com.github.benmanes.caffeine.cache.Cache<String, RefreshMeta> refreshMeta;
+
+    // Recomputes a value from its key for background refresh (null = no early refresh)
+    private volatile Function<String, Object> refresher;
+
+    public TwoLevelCache(String name,
+            com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+            com.github.benmanes.caffeine.cache.Cache<String, RefreshMeta> refreshMeta,
+            Cache remote,
+            CacheInvalidationBus invalidationBus,
+            DistributedLockService lockService,
+            CacheProperties.Stampede stampede,
+            Duration ttl,
+            Executor refreshExecutor,
+            RedisCircuitBreaker circuitBreaker,
+            int maxPendingEvictions,
+            StringRedisTemplate redisTemplate) {
+        this.name = name;
+        this.local = local;
+        this.refreshMeta = refreshMeta;
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.lockService = lockService;
+        this.stampede = stampede;
+        this.ttl = ttl;
+        this.refreshExecutor = refreshExecutor;
+        this.circuitBreaker = circuitBreaker;
+        this.maxPendingEvictions = maxPendingEvictions;
+        this.redisTemplate = redisTemplate;
+    }
+
+    // Get value from L1, falling back to Redis
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+
+        Object remoteValue = remoteGet(key);
+        if (remoteValue == null) {
+            return null;
+        }
+        local.put(localKey, remoteValue);
+        return new SimpleValueWrapper(remoteValue);
+    }
+
+    // Get value by key and type
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    // Get value by key, loading it at most once per node (and ideally once per cluster) on a miss
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            maybeRefreshEarly(localKey);
+            return (T) value;
+        }
+
+        // Single-flight: concurrent misses for the same key wait on the first one
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(localKey, flight);
+        if (existing != null) {
+            return (T) await(existing);
+        }
+
+        try {
+            Object loaded = loadThroughRemote(key, localKey, valueLoader);
+            flight.complete(loaded);
+            return (T) loaded;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, flight);
+        }
+    }
+
+    // Put value into Redis and L1, other nodes drop their stale copy
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = localKey(key);
+        callRemote(() -> {
+            remote.put(key, value);
+            return true;
+        }, () -> markPending(localKey));
+
+        if (value != null) {
+            local.put(localKey, value);
+        } else {
+            local.invalidate(localKey);
+        }
+        invalidationBus.publishEvict(name, localKey);
+    }
+
+    // Put value into Redis if absent, L1 picks it up on the next read
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String localKey = localKey(key);
+        if (circuitBreaker.allowRequest()) {
+            try {
+                ValueWrapper existing = remote.putIfAbsent(key, value);
+                circuitBreaker.recordSuccess();
+                evictLocal(localKey);
+                return existing;
+            } catch (RuntimeException e) {
+                circuitBreaker.recordFailure(e);
+            }
+        }
+
+        // Redis unavailable, L1 decides
+        Object existing = value != null ? local.asMap().putIfAbsent(localKey, value) : local.getIfPresent(localKey);
+        markPending(localKey);
+        return existing != null ? new SimpleValueWrapper(existing) : null;
+    }
+
+    // Evict value everywhere
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        callRemote(() -> {
+            remote.evict(key);
+            return true;
+        }, () -> markPending(localKey));
+        evictLocal(localKey);
+        invalidationBus.publishEvict(name, localKey);
+    }
+
+    // Evict many keys everywhere: one pipelined round trip to Redis and one broadcast,
+    // instead of a DEL and a publish per key
+    public void evictAll(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> localKeys = keys.stream().map(this::localKey).distinct().toList();
+        if (!(remote instanceof RedisCache redisCache)) {
+            keys.forEach(this::evict);
+            return;
+        }
+
+        String prefix = redisCache.getCacheConfiguration().getKeyPrefixFor(name);
+        callRemote(() -> {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (int from = 0; from < localKeys.size(); from += BULK_DELETE_CHUNK) {
+                    List<String> chunk = localKeys.subList(from,
+                            Math.min(localKeys.size(), from + BULK_DELETE_CHUNK));
+                    stringConnection.del(chunk.stream().map(key -> prefix + key).toArray(String[]::new));
+                }
+                return null;
+            });
+            return true;
+        }, () -> {
+            localKeys.forEach(this::markPending);
+            return false;
+        });
+        localKeys.forEach(this::evictLocal);
+        invalidationBus.publishEvictAll(name, localKeys);
+    }
+
+    // Evict value everywhere, reporting whether Redis held it
+    @Override
+    public boolean evictIfPresent(Object key) {
+        String localKey = localKey(key);
+        boolean presentLocally = local.getIfPresent(localKey) != null;
+        boolean evicted = callRemote(() -> remote.evictIfPresent(key),
+                () -> markPending(localKey) || presentLocally);
+        evictLocal(localKey);
+        invalidationBus.publishEvict(name, localKey);
+        return evicted;
+    }
+
+    // Clear cache everywhere
+    @Override
+    public void clear() {
+        callRemote(() -> {
+            remote.clear();
+            return true;
+        }, this::markPendingClear);
+        clearLocal();
+        invalidationBus.publishClear(name);
+    }
+
+    // Invalidate cache everywhere
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = callRemote(remote::invalidate, this::markPendingClear);
+        clearLocal();
+        invalidationBus.publishClear(name);
+        return invalidated;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    // Enable background early refresh for this cache
+    void setRefresher(Function<String, Object> refresher) {
+        this.refresher = refresher;
+    }
+
+    // Drop a key from this node's L1 only (used by the invalidation listener)
+    void evictLocal(String localKey) {
+        local.invalidate(localKey);
+        refreshMeta.invalidate(localKey);
+    }
+
+    // Drop this node's whole L1 (used by the invalidation listener)
+    void clearLocal() {
+        local.invalidateAll();
+        refreshMeta.invalidateAll();
+    }
+
+    // Redis is reachable again: push out the changes it missed while the breaker was open
+    void replayPending() {
+        if (pendingClear) {
+            pendingClear = false;
+            pendingEvictions.clear();
+            clear();
+            return;
+        }
+        for (String localKey : pendingEvictions) {
+            if (!circuitBreaker.allowRequest()) {
+                return; // Redis dropped again, keep the rest for the next recovery
+            }
+            pendingEvictions.remove(localKey);
+            evict(localKey);
+        }
+    }
+
+    // L1 missed: try Redis, then compute under a cross-node lease
+    private Object loadThroughRemote(Object key, String localKey, Callable<?> valueLoader) {
+        Object cached = remoteGet(key);
+        if (cached != null) {
+            local.put(localKey, cached);
+            return cached;
+        }
+
+        String leaseName = leaseName(localKey);
+        String token = tryLease(leaseName);
+        if (token == null) {
+            // Another node is computing this key, wait briefly for it to publish
+            Object published = awaitRemote(key);
+            if (published != null) {
+                local.put(localKey, published);
+                return published;
+            }
+            // Lease holder is slow or gone, compute ourselves rather than fail
+        }
+
+        try {
+            return compute(key, localKey, valueLoader);
+        } finally {
+            if (token != null) {
+                releaseLease(leaseName, token);
+            }
+        }
+    }
+
+    // Run the loader and store the result in both levels
+    private Object compute(Object key, String localKey, Callable<?> valueLoader) {
+        long start = System.currentTimeMillis();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        long now = System.currentTimeMillis();
+
+        if (value != null) {
+            // Redis missed this key, so there is nothing stale to replay if the put is skipped
+            callRemote(() -> {
+                remote.put(key, value);
+                return true;
+            }, () -> false);
+            local.put(localKey, value);
+            refreshMeta.put(localKey, new RefreshMeta(now + ttl.toMillis(), now - start));
+        }
+        return value;
+    }
+
+    // Probabilistic early refresh: the closer to expiry (and the slower the value is to
+    // compute) the more likely a hit schedules a background recompute
+    private void maybeRefreshEarly(String localKey) {
+        if (refresher == null) {
+            return;
+        }
+        RefreshMeta meta = refreshMeta.getIfPresent(localKey);
+        if (meta == null) {
+            return;
+        }
+
+        double gap = meta.computeMillis() * stampede.getEarlyRefreshBeta()
+                * -Math.log(ThreadLocalRandom.current().nextDouble());
+        if (System.currentTimeMillis() + gap < meta.expiresAt()) {
+            return;
+        }
+
+        // Removing the meta entry makes sure only one thread schedules the refresh
+        if (refreshMeta.asMap().remove(localKey, meta)) {
+            refreshExecutor.execute(() -> refresh(localKey));
+        }
+    }
+
+    private void refresh(String localKey) {
+        String leaseName = leaseName(localKey);
+        String token = tryLease(leaseName);
+        if (token == null) {
+            return; // another node is already refreshing
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Object value = refresher.apply(localKey);
+            long now = System.currentTimeMillis();
+            if (value != null) {
+                put(localKey, value);
+                refreshMeta.put(localKey, new RefreshMeta(now + ttl.toMillis(), now - start));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Early refresh failed | Cache: {} | Key: {} | {}", name, localKey, e.getMessage());
+        } finally {
+            releaseLease(leaseName, token);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for cache load", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Poll Redis until the lease holder publishes the value or the wait budget runs out
+    private Object awaitRemote(Object key) {
+        long deadline = System.currentTimeMillis() + stampede.getLeaseWait().toMillis();
+        while (System.currentTimeMillis() < deadline && circuitBreaker.allowRequest()) {
+            try {
+                Thread.sleep(stampede.getPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            Object value = remoteGet(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    // Read a value from Redis, null on a miss or when Redis is unavailable
+    private Object remoteGet(Object key) {
+        return callRemote(() -> {
+            ValueWrapper wrapper = remote.get(key);
+            return wrapper != null ? wrapper.get() : null;
+        }, () -> null);
+    }
+
+    // Run a Redis operation through the circuit breaker, using the fallback when the
+    // breaker is open or the call fails (timeouts count towards opening it)
+    private <T> T callRemote(Supplier<T> operation, Supplier<T> fallback) {
+        if (!circuitBreaker.allowRequest()) {
+            return fallback.get();
+        }
+        try {
+            T result = operation.get();
+            circuitBreaker.recordSuccess();
+            return result;
+        } catch (SerializationException e) {
+            // A bad payload says nothing about Redis health, treat it as a miss
+            log.warn("Unreadable cache entry | Cache: {} | {}", name, e.getMessage());
+            return fallback.get();
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+            log.debug("Redis call failed | Cache: {} | {}", name, e.getMessage());
+            return fallback.get();
+        }
+    }
+
+    // Remember a key Redis did not see change, returns false (nothing was evicted remotely)
+    private boolean markPending(String localKey) {
+        if (pendingClear) {
+            return false;
+        }
+        if (pendingEvictions.size() >= maxPendingEvictions) {
+            pendingClear = true;
+            pendingEvictions.clear();
+        } else {
+            pendingEvictions.add(localKey);
+        }
+        return false;
+    }
+
+    private boolean markPendingClear() {
+        pendingClear = true;
+        pendingEvictions.clear();
+        return false;
+    }
+
+    // A failing lease never blocks a load, it just loses the cross-node coalescing
+    private String tryLease(String leaseName) {
+        if (!circuitBreaker.allowRequest()) {
+            return "";
+        }
+        try {
+            String token = lockService.tryAcquire(leaseName, stampede.getLeaseTtl());
+            circuitBreaker.recordSuccess();
+            return token;
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+            log.warn("Cache lease unavailable | Cache: {} | {}", name, e.getMessage());
+            return "";
+        }
+    }
+
+    private void releaseLease(String leaseName, String token) {
+        if (token.isEmpty()) {
+            return;
+        }
+        try {
+            lockService.release(leaseName, token);
+        } catch (RuntimeException e) {
+            // Lease expires on its own
+        }
+    }
+
+    private String leaseName(String localKey) {
+        return "cache:" + name + "::" + localKey;
+    }
+
+    // Redis stores keys by their string form, L1 does the same so that
+    // Long 5 and "5" coming back from a broadcast hit the same entry
+    private String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    // Expiry and compute cost of a locally loaded entry
+    record RefreshMeta(long expiresAt, long computeMillis) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.diddycart.common.cache;
+
+import com.diddycart.common.infrastructure.DistributedLockService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+// Wraps the Redis cache manager and hands out TwoLevelCache instances,
+// one per cache name, each with its own bounded L1
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager remoteManager;
+    private final CacheProperties properties;
+    private final CacheInvalidationBus invalidationBus;
+    private final DistributedLockService lockService;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final StringRedisTemplate redisTemplate;
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    // Background early refreshes are I/O bound, virtual threads keep them cheap
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public TwoLevelCacheManager(CacheManager remoteManager,
+            CacheProperties properties,
+            CacheInvalidationBus invalidationBus,
+            DistributedLockService lockService,
+            RedisCircuitBreaker circuitBreaker,
+            StringRedisTemplate redisTemplate) {
+        this.remoteManager = remoteManager;
+        this.properties = properties;
+        this.invalidationBus = invalidationBus;
+        this.lockService = lockService;
+        this.circuitBreaker = circuitBreaker;
+        this.redisTemplate = redisTemplate;
+
+        // Once Redis is back, evict whatever changed while it was skipped
+        circuitBreaker.addRecoveryListener(this::replayPending);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteManager.getCacheNames();
+    }
+
+    // Let a cache recompute hot keys in the background before they expire.
+    // The refresher receives the key in its string form.
+    public void registerRefresher(String cacheName, Function<String, Object> refresher) {
+        Cache cache = getCache(cacheName);
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.setRefresher(refresher);
+        }
+    }
+
+    // Evict many keys of one cache everywhere in a single Redis round trip (bulk updates)
+    public void evictAll(String cacheName, Collection<?> keys) {
+        Cache cache = getCache(cacheName);
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.evictAll(keys);
+        } else if (cache != null) {
+            keys.forEach(cache::evict);
+        }
+    }
+
+    // Drop one key from this node's L1 (remote invalidation)
+    public void evictLocal(String cacheName, String key) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+    }
+
+    // Drop one cache from this node's L1 (remote invalidation)
+    public void clearLocal(String cacheName) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.clearLocal();
+        }
+    }
+
+    // Replay writes and evictions that Redis (and the other nodes) missed during an outage,
+    // then drop this node's L1 since invalidations from other nodes may have been lost too
+    private void replayPending() {
+        for (TwoLevelCache cache : caches.values()) {
+            cache.replayPending();
+            cache.clearLocal();
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache remote = remoteManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+
+        CacheProperties.Local localSettings = properties.getLocal();
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(localSettings.getMaxSize())
+                .expireAfterWrite(localSettings.getTtl())
+                .build();
+        com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.RefreshMeta> refreshMeta = Caffeine
+                .newBuilder()
+                .maximumSize(localSettings.getMaxSize())
+                .expireAfterWrite(properties.policyFor(name).getTtl())
+                .build();
+
+        return new TwoLevelCache(name, local, refreshMeta, remote, invalidationBus, lockService,
+                properties.getStampede(), properties.policyFor(name).getTtl(), refreshExecutor,
+                circuitBreaker, properties.getBreaker().getMaxPendingEvictions(), redisTemplate);
+    }
+}
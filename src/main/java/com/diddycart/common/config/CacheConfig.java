@@ -1,8 +1,15 @@
 package com.diddycart.common.config;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.cache.Cache;
+import com.diddycart.common.cache.CacheInvalidationBus;
+import com.diddycart.common.cache.CacheProperties;
+import com.diddycart.common.cache.Lz4RedisSerializer;
+import com.diddycart.common.cache.MeteredRedisSerializer;
+import com.diddycart.common.cache.MetricsCacheManager;
+import com.diddycart.common.cache.RedisCircuitBreaker;
+import com.diddycart.common.cache.SmileRedisSerializer;
+import com.diddycart.common.cache.TwoLevelCacheManager;
+import com.diddycart.common.infrastructure.DistributedLockService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,147 +17,111 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
-import java.time.Duration;
-import java.util.concurrent.Callable;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Configuration
 public class CacheConfig {
 
-    // Cache Manager Configuration
+    // Caches used by the services, each gets its own policy and value-size histogram
+    public static final List<String> CACHE_NAMES = List.of(
+            "products", "product_pages", "orders", "user_profile",
+            "vendors", "vendors_by_user", "address", "user_addresses", "missing_ids");
+
+    // Pub/sub bus used to keep every node's L1 in sync
     @Bean
-    @Primary
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        // Configure JSON Serialization
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+    public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate redisTemplate,
+            RedisCircuitBreaker circuitBreaker) {
+        return new CacheInvalidationBus(redisTemplate, circuitBreaker);
+    }
 
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1))
-                .disableCachingNullValues()
-                // Use JSON instead of Java ByteStream
-                .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(serializer));
+    // Two-level Cache Manager: in-process L1 in front of Redis L2.
+    // Fails open: while the circuit breaker is open, Redis is skipped and the
+    // services run on L1 / Postgres (Lettuce timeouts are kept tight in application.yaml)
+    @Bean
+    public TwoLevelCacheManager twoLevelCacheManager(RedisConnectionFactory connectionFactory,
+            CacheProperties cacheProperties,
+            CacheInvalidationBus cacheInvalidationBus,
+            DistributedLockService lockService,
+            RedisCircuitBreaker circuitBreaker,
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry) {
+        // Configure JSON Serialization (also reads legacy JSON entries for binary caches)
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+        // Per-cache configuration from the policy registry (TTL, format, compression)
+        Set<String> cacheNames = new LinkedHashSet<>(CACHE_NAMES);
+        cacheNames.addAll(cacheProperties.getPolicies().keySet());
+
+        Map<String, RedisCacheConfiguration> cacheConfigs = new HashMap<>();
+        for (String name : cacheNames) {
+            cacheConfigs.put(name, redisCacheConfiguration(name, cacheProperties.policyFor(name),
+                    jsonSerializer, meterRegistry));
+        }
 
         RedisCacheManager redisManager = RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(config)
+                .cacheDefaults(redisCacheConfiguration("default", cacheProperties.getDefaults(),
+                        jsonSerializer, meterRegistry))
+                .withInitialCacheConfigurations(cacheConfigs)
                 .build();
+        redisManager.initializeCaches();
 
-        // Wrap it with our Logging Decorator
-        return new LoggingCacheManager(redisManager);
+        return new TwoLevelCacheManager(redisManager, cacheProperties, cacheInvalidationBus, lockService,
+                circuitBreaker, redisTemplate);
     }
 
-    // A Decorator for CacheManager that returns LoggingCache instances
-    static class LoggingCacheManager implements CacheManager {
-        private final CacheManager delegate;
-
-        public LoggingCacheManager(CacheManager delegate) {
-            this.delegate = delegate;
-        }
-
-        @Override
-        public Cache getCache(String name) {
-            Cache cache = delegate.getCache(name);
-            return new LoggingCache(cache);
-        }
-
-        @Override
-        public java.util.Collection<String> getCacheNames() {
-            return delegate.getCacheNames();
-        }
+    // Cache Manager Configuration
+    @Bean
+    @Primary
+    public CacheManager cacheManager(TwoLevelCacheManager twoLevelCacheManager,
+            CacheProperties cacheProperties,
+            MeterRegistry meterRegistry) {
+        // Wrap it with our Metrics Decorator (hit/miss, load time, puts, evictions)
+        return new MetricsCacheManager(twoLevelCacheManager, meterRegistry, cacheProperties.getLogSampleRate());
     }
 
-    // A Decorator for Cache that returns LoggingCache instances
-    static class LoggingCache implements Cache {
-        private final Cache delegate;
-        private final Logger log = LoggerFactory.getLogger(LoggingCache.class);
-
-        // Constructor
-        public LoggingCache(Cache delegate) {
-            this.delegate = delegate;
-        }
-
-        // Get value from cache
-        @Override
-        public ValueWrapper get(Object key) {
-            ValueWrapper value = delegate.get(key);
-            if (value != null) {
-                log.info("✅ CACHE HIT  | Cache: {} | Key: {}", getName(), key);
-            } else {
-                log.info("❌ CACHE MISS | Cache: {} | Key: {}", getName(), key);
-            }
-            return value;
-        }
-
-        // Get value from cache by key and type
-        @Override
-        public <T> T get(Object key, Class<T> type) {
-            T value = delegate.get(key, type);
-            if (value != null) {
-                log.info("✅ CACHE HIT  | Cache: {} | Key: {}", getName(), key);
-            } else {
-                log.info("❌ CACHE MISS | Cache: {} | Key: {}", getName(), key);
-            }
-            return value;
-        }
-
-        // Get value from cache by key and valueLoader
-        @Override
-        public <T> T get(Object key, Callable<T> valueLoader) {
-            log.debug("🔍 CACHE LOAD | Cache: {} | Key: {}", getName(), key);
-            return delegate.get(key, valueLoader);
-        }
-
-        // Put value into cache
-        @Override
-        public void put(Object key, Object value) {
-            log.info("💾 CACHE PUT  | Cache: {} | Key: {}", getName(), key);
-            delegate.put(key, value);
-        }
-
-        // Evict value from cache
-        @Override
-        public void evict(Object key) {
-            log.info("🗑️ CACHE EVICT| Cache: {} | Key: {}", getName(), key);
-            delegate.evict(key);
-        }
-
-        // Clear cache
-        @Override
-        public void clear() {
-            log.info("🧹 CACHE CLEAR| Cache: {}", getName());
-            delegate.clear();
-        }
-
-        // Standard Delegation Methods
-        @Override
-        public String getName() {
-            return delegate.getName();
-        }
-
-        // Get native cache
-        @Override
-        public Object getNativeCache() {
-            return delegate.getNativeCache();
-        }
-
-        // Put value into cache if absent
-        @Override
-        public ValueWrapper putIfAbsent(Object key, Object value) {
-            return delegate.putIfAbsent(key, value);
-        }
+    // Listens for invalidations published by other nodes and drops their keys from L1
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+            TwoLevelCacheManager twoLevelCacheManager,
+            CacheInvalidationBus cacheInvalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> cacheInvalidationBus.receive(message.getBody(), twoLevelCacheManager),
+                new ChannelTopic(CacheInvalidationBus.CHANNEL));
+        return container;
+    }
 
-        // Evict value from cache if present
-        @Override
-        public boolean evictIfPresent(Object key) {
-            return delegate.evictIfPresent(key);
+    // Build the Redis configuration for one cache from its policy
+    private RedisCacheConfiguration redisCacheConfiguration(String cacheName,
+            CacheProperties.Policy policy,
+            GenericJackson2JsonRedisSerializer jsonSerializer,
+            MeterRegistry meterRegistry) {
+        RedisSerializer<Object> serializer = policy.getFormat() == CacheProperties.Format.SMILE
+                ? new SmileRedisSerializer(jsonSerializer)
+                : jsonSerializer;
+
+        String format = policy.getFormat().name().toLowerCase();
+        if (policy.getCompressAbove() > 0) {
+            serializer = new Lz4RedisSerializer(serializer, policy.getCompressAbove());
+            format = format + "+lz4";
         }
 
-        // Invalidate cache
-        @Override
-        public boolean invalidate() {
-            return delegate.invalidate();
-        }
+        return RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(policy.getTtl())
+                .disableCachingNullValues()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new MeteredRedisSerializer(serializer, cacheName, format, meterRegistry)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package com.diddycart.common.infrastructure;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+// Short-lived Redis leases so only one node does a piece of work at a time
+// (SET NX PX to acquire, compare-and-delete to release)
+@Service
+public class DistributedLockService {
+
+    private static final String PREFIX = "lock:";
+
+    // Only the owner (matching token) may release the lease
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    // Try to take the lease, returns the owner token or null if another node holds it
+    public String tryAcquire(String name, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(PREFIX + name, token, ttl);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    // Release the lease if we still own it (it may have expired and been taken over)
+    public void release(String name, String token) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(PREFIX + name), token);
+    }
+}
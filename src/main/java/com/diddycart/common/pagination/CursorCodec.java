@@ -0,0 +1,86 @@
+package com.diddycart.common.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Opaque cursors for keyset pagination: the last row's sort key + id, Base64url-encoded.
+// Clients must treat them as tokens; the format can change between versions.
+public final class CursorCodec {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private static final String VERSION = "v1";
+
+    private CursorCodec() {
+    }
+
+    // Cursor for listings sorted by id only
+    public static String encodeId(Long id) {
+        return encode(VERSION + "|" + id);
+    }
+
+    public static Long decodeId(String cursor) {
+        String[] parts = decode(cursor, 2);
+        return parseLong(parts[1]);
+    }
+
+    // Cursor for listings sorted by (timestamp, id), full timestamp precision is kept
+    public static String encodeTimeAndId(Instant time, Long id) {
+        return encode(VERSION + "|" + time.getEpochSecond() + "|" + time.getNano() + "|" + id);
+    }
+
+    public static TimeAndId decodeTimeAndId(String cursor) {
+        String[] parts = decode(cursor, 4);
+        return new TimeAndId(Instant.ofEpochSecond(parseLong(parts[1]), parseLong(parts[2])), parseLong(parts[3]));
+    }
+
+    // Clamp a requested slice size
+    public static int clampSize(Integer size) {
+        if (size == null || size < 1) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    // Build a slice from size + 1 fetched rows (the extra row only signals a next slice)
+    public static <R, T> CursorPage<T> slice(List<R> rows, int size, Function<R, T> mapper,
+            Function<R, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<R> visible = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(visible.get(visible.size() - 1)) : null;
+        return new CursorPage<>(visible.stream().map(mapper).toList(), size, hasNext, nextCursor);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor, int expectedParts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != expectedParts || !VERSION.equals(parts[0])) {
+                throw new RuntimeException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    // Decoded (timestamp, id) position
+    public record TimeAndId(Instant time, Long id) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.diddycart.common.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Slice of a keyset-paginated listing. No total count: pass nextCursor back
+// as "cursor" to get the following slice (null when this is the last one).
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
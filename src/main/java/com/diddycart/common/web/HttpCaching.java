@@ -0,0 +1,62 @@
+package com.diddycart.common.web;
+
+import com.diddycart.common.cache.CacheProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+// Conditional GET support for public catalog responses (and private ones, see okPrivate).
+//
+// The strong ETag is a 64-bit FNV-1a hash of the values the response is built from
+// (DTO toString() via Lombok, page metadata), so it changes whenever the content does,
+// including writes that bypass JPA (bulk SQL, live stock). Spring compares it with
+// If-None-Match and answers 304 before the body is serialized.
+@Component
+public class HttpCaching {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    // 200 with ETag + public Cache-Control, or 304 when the client already has this version
+    public <T> ResponseEntity<T> ok(T body, Object... contentParts) {
+        return ResponseEntity.ok()
+                .cacheControl(publicCatalog())
+                .eTag(etag(contentParts))
+                .body(body);
+    }
+
+    // Same for authenticated responses carrying personal data: the browser may keep and
+    // revalidate them (304 via ETag), shared proxies/CDNs must not store them
+    public <T> ResponseEntity<T> okPrivate(T body, Object... contentParts) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag(contentParts))
+                .body(body);
+    }
+
+    public static String etag(Object... contentParts) {
+        long hash = FNV_OFFSET;
+        for (Object part : contentParts) {
+            for (byte b : String.valueOf(part).getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= FNV_PRIME;
+            }
+            hash ^= 0x1f; // part separator, so ("ab", "c") != ("a", "bc")
+            hash *= FNV_PRIME;
+        }
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    private CacheControl publicCatalog() {
+        CacheProperties.Http http = cacheProperties.getHttp();
+        return CacheControl.maxAge(http.getMaxAge())
+                .cachePublic()
+                .staleWhileRevalidate(http.getStaleWhileRevalidate());
+    }
+}
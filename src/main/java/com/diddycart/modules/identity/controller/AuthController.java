@@ -6,6 +6,7 @@ import com.diddycart.modules.identity.dto.RegisterRequest;
 import com.diddycart.modules.identity.dto.UserProfileRequest;
 import com.diddycart.modules.identity.dto.UserProfileResponse;
 import com.diddycart.modules.identity.service.AuthService;
+import com.diddycart.modules.sales.controller.GuestCartController;
 import com.diddycart.common.security.JwtUtil;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,17 +23,21 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
-    // User Registration
+    // User Registration (X-Guest-Cart: guest cart to take over)
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> registerUser(@Valid @RequestBody RegisterRequest request) {
-        AuthResponse response = authService.register(request);
+    public ResponseEntity<AuthResponse> registerUser(
+            @Valid @RequestBody RegisterRequest request,
+            @RequestHeader(value = GuestCartController.TOKEN_HEADER, required = false) String guestCart) {
+        AuthResponse response = authService.register(request, guestCart);
         return ResponseEntity.ok(response);
     }
 
-    // User Login
+    // User Login (X-Guest-Cart: guest cart to merge)
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> loginUser(@Valid @RequestBody LoginRequest request) {
-        return ResponseEntity.ok(authService.login(request));
+    public ResponseEntity<AuthResponse> loginUser(
+            @Valid @RequestBody LoginRequest request,
+            @RequestHeader(value = GuestCartController.TOKEN_HEADER, required = false) String guestCart) {
+        return ResponseEntity.ok(authService.login(request, guestCart));
     }
 
     // Get My Profile
@@ -6,6 +6,7 @@ import com.diddycart.modules.identity.dto.VendorRegistrationRequest;
 import com.diddycart.modules.identity.dto.VendorResponse;
 import com.diddycart.modules.identity.service.VendorService;
 import com.diddycart.common.security.JwtUtil;
+import com.diddycart.common.web.HttpCaching;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +20,9 @@ public class VendorController {
     @Autowired
     private VendorService vendorService;
 
+    @Autowired
+    private HttpCaching httpCaching;
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -60,10 +64,11 @@ public class VendorController {
         return ResponseEntity.ok(response);
     }
 
-    // Get vendor complete details by ID (public)
+    // Get vendor complete details by ID (authenticated, includes contact details and GSTIN,
+    // so never stored by shared caches)
     @GetMapping("/{vendorId}")
     public ResponseEntity<VendorResponse> getVendorById(@PathVariable Long vendorId) {
         VendorResponse response = vendorService.getVendorById(vendorId);
-        return ResponseEntity.ok(response);
+        return httpCaching.okPrivate(response, response);
     }
 }
@@ -9,6 +9,7 @@ import com.diddycart.modules.identity.models.UserRole;
 import com.diddycart.modules.identity.models.User;
 import com.diddycart.modules.sales.models.Cart;
 import com.diddycart.modules.sales.repository.CartRepository;
+import com.diddycart.modules.sales.service.CartService;
 import com.diddycart.modules.identity.repository.UserRepository;
 import com.diddycart.common.security.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +29,9 @@ public class AuthService {
     @Autowired
     private CartRepository cartRepository;
 
+    @Autowired
+    private CartService cartService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -37,8 +41,9 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtUtil;
 
-    // User Registration by RegisterRequest (Auto-login after registration)
-    public AuthResponse register(RegisterRequest request) {
+    // User Registration by RegisterRequest (Auto-login after registration),
+    // guestCartToken: the shopper's guest cart becomes their cart (optional)
+    public AuthResponse register(RegisterRequest request, String guestCartToken) {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("Email is already in use!");
         }
@@ -56,6 +61,7 @@ public class AuthService {
         Cart cart = new Cart();
         cart.setUser(savedUser);
         cartRepository.save(cart);
+        cartService.mergeGuestCart(savedUser.getId(), guestCartToken);
 
         // Generate JWT token for auto-login by userId and role
         String token = jwtUtil.generateToken(savedUser.getId(), savedUser.getRole().name());
@@ -69,8 +75,8 @@ public class AuthService {
         return response;
     }
 
-    // User Login by LoginRequest
-    public AuthResponse login(LoginRequest request) {
+    // User Login by LoginRequest, guestCartToken: guest cart to merge into the user's cart (optional)
+    public AuthResponse login(LoginRequest request, String guestCartToken) {
         // Authenticate
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
@@ -79,6 +85,9 @@ public class AuthService {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        // Carry over what was added before signing in
+        cartService.mergeGuestCart(user.getId(), guestCartToken);
+
         // Generate JWT token by userId and role
         String token = jwtUtil.generateToken(user.getId(), user.getRole().name());
 
@@ -9,16 +9,21 @@ import com.diddycart.modules.identity.models.User;
 import com.diddycart.modules.identity.models.Vendor;
 import com.diddycart.modules.identity.repository.UserRepository;
 import com.diddycart.modules.identity.repository.VendorRepository;
+import com.diddycart.common.cache.ExistenceFilter;
 import com.diddycart.common.security.JwtUtil;
+import com.diddycart.modules.products.event.ProductChangedEvent;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Set;
+
 @Service
 public class VendorService {
 
@@ -31,6 +36,12 @@ public class VendorService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ExistenceFilter existenceFilter;
+
     // Register user as vendor by userId and VendorRegistrationRequest
     @Transactional
     @CacheEvict(value = "user_profile", key = "#userId")
@@ -58,6 +69,7 @@ public class VendorService {
 
         // Save vendor to VendorRepository
         Vendor savedVendor = vendorRepository.save(vendor);
+        existenceFilter.recordCreated(ExistenceFilter.Entity.VENDORS, savedVendor.getId());
 
         // Update user role to VENDOR by userId
         user.setRole(UserRole.VENDOR);
@@ -85,10 +97,19 @@ public class VendorService {
 
     // Get vendor profile by vendorId checks cache first
     // Sents the full vendor details including user info by vendorId
-    @Cacheable(value = "vendors", key = "#vendorId")
+    // IDs the existence filter rules out skip the cache and fail fast
+    @Cacheable(value = "vendors", key = "#vendorId", condition = "@existenceFilter.mightExist('vendors', #vendorId)")
     public VendorResponse getVendorById(Long vendorId) {
-        Vendor vendor = vendorRepository.findById(vendorId)
-                .orElseThrow(() -> new RuntimeException("Vendor not found"));
+        if (!existenceFilter.mightExist(ExistenceFilter.Entity.VENDORS, vendorId)
+                || existenceFilter.isKnownMissing(ExistenceFilter.Entity.VENDORS, vendorId)) {
+            throw new RuntimeException("Vendor not found");
+        }
+
+        Vendor vendor = vendorRepository.findById(vendorId).orElse(null);
+        if (vendor == null) {
+            existenceFilter.recordMissing(ExistenceFilter.Entity.VENDORS, vendorId);
+            throw new RuntimeException("Vendor not found");
+        }
         return mapToResponse(vendor);
     }
 
@@ -108,6 +129,9 @@ public class VendorService {
             throw new RuntimeException("GSTIN already registered");
         }
 
+        // Product listings show the store name, refresh them if it changes
+        boolean storeRenamed = !vendor.getStoreName().equals(request.getStoreName());
+
         // Update vendor fields
         vendor.setStoreName(request.getStoreName());
         vendor.setGstin(request.getGstin());
@@ -115,6 +139,10 @@ public class VendorService {
 
         // Save vendor to VendorRepository
         Vendor updatedVendor = vendorRepository.save(vendor);
+        if (storeRenamed) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED,
+                    Set.of(), Set.of(), Set.of(updatedVendor.getId())));
+        }
 
         // Map Vendor to VendorResponse
         return mapToResponse(updatedVendor);
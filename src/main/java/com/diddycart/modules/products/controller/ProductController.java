@@ -1,19 +1,44 @@
 package com.diddycart.modules.products.controller;
 
+import com.diddycart.common.pagination.CursorPage;
 import com.diddycart.common.security.JwtUtil;
+import com.diddycart.common.web.HttpCaching;
+import com.diddycart.modules.products.dto.ProductBulkUpdateRequest;
+import com.diddycart.modules.products.dto.ProductBulkUpdateResponse;
+import com.diddycart.modules.products.dto.ProductCardResponse;
+import com.diddycart.modules.products.dto.ProductChangesResponse;
+import com.diddycart.modules.products.dto.ProductFilterRequest;
+import com.diddycart.modules.products.dto.ProductFilterResponse;
+import com.diddycart.modules.products.dto.ProductImportResponse;
 import com.diddycart.modules.products.dto.ProductRequest;
 import com.diddycart.modules.products.dto.ProductResponse;
+import com.diddycart.modules.products.dto.SuggestionResponse;
+import com.diddycart.modules.products.service.CatalogChangeService;
+import com.diddycart.modules.products.service.CatalogFacetIndex;
+import com.diddycart.modules.products.service.CatalogSuggestIndex;
+import com.diddycart.modules.products.service.ProductBulkUpdateService;
+import com.diddycart.modules.products.service.ProductExportService;
+import com.diddycart.modules.products.service.ProductImportService;
 import com.diddycart.modules.products.service.ProductService;
+import com.diddycart.modules.products.service.ProductStockService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/products")
@@ -22,25 +47,116 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductStockService productStockService;
+
+    @Autowired
+    private CatalogFacetIndex catalogFacetIndex;
+
+    @Autowired
+    private CatalogSuggestIndex catalogSuggestIndex;
+
+    @Autowired
+    private CatalogChangeService catalogChangeService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductBulkUpdateService productBulkUpdateService;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private HttpCaching httpCaching;
+
     @Autowired
     private JwtUtil jwtUtil;
 
-    // Get All Products by pageable (Paginated)
+    // Get All Products by pageable (Paginated, cached page + live stock)
     @GetMapping
     public ResponseEntity<Page<ProductResponse>> getAllProducts(Pageable pageable) {
-        return ResponseEntity.ok(productService.getAllProducts(pageable));
+        Page<ProductResponse> page = productStockService.withLiveStock(productService.getAllProducts(pageable));
+        return httpCaching.ok(page, pageParts(page));
+    }
+
+    // Get Products by cursor (keyset pagination, newest first, no total count)
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<ProductResponse>> getProductsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductResponse> page = productService.getProductsAfter(cursor, size);
+        page.setContent(productStockService.withLiveStock(page.getContent()));
+        return httpCaching.ok(page, page);
+    }
+
+    // Get listing cards by pageable (tile per product from the product_cards read model,
+    // cached page + live availability; sort by card fields: name, price, addedAt, id)
+    @GetMapping("/cards")
+    public ResponseEntity<Page<ProductCardResponse>> getProductCards(Pageable pageable) {
+        Page<ProductCardResponse> page = productStockService
+                .withLiveAvailability(productService.getProductCards(pageable));
+        return httpCaching.ok(page, pageParts(page));
     }
 
-    // Get Product by ID
+    // Get listing cards by cursor (keyset pagination, newest first, no total count)
+    @GetMapping("/cards/cursor")
+    public ResponseEntity<CursorPage<ProductCardResponse>> getProductCardsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductCardResponse> page = productService.getProductCardsAfter(cursor, size);
+        page.setContent(productStockService.withLiveAvailability(page.getContent()));
+        return httpCaching.ok(page, page);
+    }
+
+    // Search listing cards (cached page + live availability)
+    @GetMapping("/cards/search")
+    public ResponseEntity<Page<ProductCardResponse>> searchProductCards(@RequestParam String keyword,
+            Pageable pageable) {
+        Page<ProductCardResponse> page = productStockService
+                .withLiveAvailability(productService.searchProductCards(keyword, pageable));
+        return httpCaching.ok(page, pageParts(page));
+    }
+
+    // Get Product by ID (cached snapshot + live stock)
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+        ProductResponse product = productStockService.withLiveStock(productService.getProductById(id));
+        return httpCaching.ok(product, product);
     }
 
-    // Search Products
+    // Search Products (cached page + live stock)
     @GetMapping("/search")
     public ResponseEntity<Page<ProductResponse>> searchProducts(@RequestParam String keyword, Pageable pageable) {
-        return ResponseEntity.ok(productService.searchProducts(keyword, pageable));
+        Page<ProductResponse> page = productStockService
+                .withLiveStock(productService.searchProducts(keyword, pageable));
+        return httpCaching.ok(page, pageParts(page));
+    }
+
+    // Typeahead suggestions (product names and categories) for a typed prefix
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(@RequestParam String prefix,
+            @RequestParam(required = false) Integer limit) {
+        List<SuggestionResponse> suggestions = catalogSuggestIndex.suggest(prefix, limit);
+        return httpCaching.ok(suggestions, suggestions);
+    }
+
+    // Filter Products by keyword, category, vendor, price range and stock, with facet counts
+    @GetMapping("/filter")
+    public ResponseEntity<ProductFilterResponse> filterProducts(@Valid @ModelAttribute ProductFilterRequest request) {
+        ProductFilterResponse response = catalogFacetIndex.filter(request);
+        response.setContent(productStockService.withLiveStock(response.getContent()));
+        return httpCaching.ok(response, response);
+    }
+
+    // Delta sync: products created, modified or deleted after the "since" watermark
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesResponse> getChanges(@RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit) {
+        ProductChangesResponse changes = catalogChangeService.getChanges(since, limit);
+        changes.setProducts(productStockService.withLiveStock(changes.getProducts()));
+        return httpCaching.ok(changes, changes);
     }
 
     // Vendor/Admin: Add Product
@@ -57,6 +173,60 @@ public class ProductController {
         return ResponseEntity.ok(productService.addProduct(productRequest, null, vendorId));
     }
 
+    // Admin: Stream the whole catalog as NDJSON (default) or CSV, optionally only products
+    // modified at or after modifiedSince (ISO-8601, e.g. 2026-01-31T00:00:00Z)
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Instant modifiedSince) {
+
+        ProductExportService.Format exportFormat = switch (format.toLowerCase(Locale.ROOT)) {
+            case "ndjson" -> ProductExportService.Format.NDJSON;
+            case "csv" -> ProductExportService.Format.CSV;
+            default -> throw new RuntimeException("Unsupported export format: " + format);
+        };
+        boolean csv = exportFormat == ProductExportService.Format.CSV;
+        MediaType contentType = csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON;
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products." + (csv ? "csv" : "ndjson") + "\"")
+                .body(productExportService.export(exportFormat, modifiedSince));
+    }
+
+    // Vendor/Admin: Bulk import products from a streamed CSV body (text/csv)
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasAnyAuthority('ROLE_VENDOR', 'ROLE_ADMIN')")
+    public ResponseEntity<ProductImportResponse> importProductsCsv(
+            HttpServletRequest request,
+            @RequestHeader("Authorization") String token) throws IOException {
+
+        return importProducts(request, token, ProductImportService.Format.CSV);
+    }
+
+    // Vendor/Admin: Bulk import products from a streamed NDJSON body (application/x-ndjson)
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('ROLE_VENDOR', 'ROLE_ADMIN')")
+    public ResponseEntity<ProductImportResponse> importProductsNdjson(
+            HttpServletRequest request,
+            @RequestHeader("Authorization") String token) throws IOException {
+
+        return importProducts(request, token, ProductImportService.Format.NDJSON);
+    }
+
+    // Vendor/Admin: Bulk update price and/or stock of own products
+    @PutMapping("/bulk")
+    @PreAuthorize("hasAnyAuthority('ROLE_VENDOR', 'ROLE_ADMIN')")
+    public ResponseEntity<ProductBulkUpdateResponse> bulkUpdateProducts(
+            @RequestBody @Valid ProductBulkUpdateRequest request,
+            @RequestHeader("Authorization") String token) {
+
+        Long vendorId = jwtUtil.extractUserId(token.substring(7));
+        return ResponseEntity.ok(productBulkUpdateService.bulkUpdate(request, vendorId));
+    }
+
     // Vendor/Admin: Update Product
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_VENDOR', 'ROLE_ADMIN')")
@@ -84,4 +254,17 @@ public class ProductController {
         productService.deleteProduct(id, vendorId);
         return ResponseEntity.ok("Product deleted successfully");
     }
-}
\ No newline at end of file
+
+    // The format comes from the mapping Spring matched on the Content-Type (consumes)
+    private ResponseEntity<ProductImportResponse> importProducts(HttpServletRequest request, String token,
+            ProductImportService.Format format) throws IOException {
+        Long vendorId = jwtUtil.extractUserId(token.substring(7));
+        return ResponseEntity.ok(productImportService.importProducts(request.getInputStream(), format, vendorId));
+    }
+
+    // What a page response is built from (PageImpl.toString() only describes the page)
+    private Object[] pageParts(Page<?> page) {
+        return new Object[] { page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(),
+                page.getSort() };
+    }
+}
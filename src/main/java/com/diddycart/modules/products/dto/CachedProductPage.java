@@ -0,0 +1,22 @@
+package com.diddycart.modules.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+// Cache snapshot of one catalog listing page (content + total count), holding full
+// products or listing cards. The Page itself is rebuilt from the request's Pageable on a hit.
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedProductPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<T> content;
+    private long totalElements;
+}
@@ -0,0 +1,36 @@
+package com.diddycart.modules.products.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Data Transfer Object for bulk price/stock updates by a vendor
+// Each item sets a new price and/or stock for one product; a null field is left unchanged.
+
+@Data
+public class ProductBulkUpdateRequest {
+
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 5000, message = "At most 5000 items per request")
+    private List<@Valid Item> items;
+
+    @Data
+    public static class Item {
+
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+
+        @DecimalMin(value = "0.01", message = "Price must be greater than 0")
+        private BigDecimal price;
+
+        @Min(value = 0, message = "Stock cannot be negative")
+        private Integer stockQuantity;
+    }
+}
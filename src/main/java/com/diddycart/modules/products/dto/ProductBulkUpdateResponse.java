@@ -0,0 +1,17 @@
+package com.diddycart.modules.products.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Data Transfer Object for bulk price/stock update results
+// skippedProductIds: products that do not exist or belong to another vendor.
+
+@Data
+public class ProductBulkUpdateResponse {
+
+    private int requested;
+    private int updated;
+    private List<Long> skippedProductIds = new ArrayList<>();
+}
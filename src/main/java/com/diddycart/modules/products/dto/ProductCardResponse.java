@@ -0,0 +1,23 @@
+package com.diddycart.modules.products.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+// Data Transfer Object for product listing tiles
+// What catalog listings and search send per product; full details come from GET /api/products/{id}.
+
+@Data
+public class ProductCardResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private String imageUrl; // First image only
+    private String categoryName;
+    private String vendorStoreName;
+    private Boolean inStock;
+}
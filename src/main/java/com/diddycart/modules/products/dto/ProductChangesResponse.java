@@ -0,0 +1,22 @@
+package com.diddycart.modules.products.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Data Transfer Object for the catalog change feed
+// Products created or modified and IDs of products deleted after the "since" watermark,
+// oldest change first. Pass nextSince back as "since" (keep calling while hasMore).
+// resetRequired: the watermark is older than the tombstone retention, drop the local
+// catalog and sync again without "since".
+
+@Data
+public class ProductChangesResponse {
+
+    private List<ProductResponse> products = new ArrayList<>();
+    private List<Long> deletedProductIds = new ArrayList<>();
+    private String nextSince;
+    private boolean hasMore;
+    private boolean resetRequired;
+}
@@ -0,0 +1,37 @@
+package com.diddycart.modules.products.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Data Transfer Object for faceted catalog filtering (bound from query parameters)
+// e.g. /api/products/filter?keyword=shoe&categoryId=1&categoryId=2&minPrice=500&inStock=true
+
+@Data
+public class ProductFilterRequest {
+
+    private String keyword;
+
+    // Several values of one facet are OR-ed, different facets are AND-ed
+    private List<Long> categoryId;
+    private List<Long> vendorId;
+
+    @DecimalMin(value = "0", message = "Minimum price cannot be negative")
+    private BigDecimal minPrice;
+
+    @DecimalMin(value = "0", message = "Maximum price cannot be negative")
+    private BigDecimal maxPrice;
+
+    private Boolean inStock;
+
+    @Min(value = 0, message = "Page cannot be negative")
+    private int page = 0;
+
+    @Min(value = 1, message = "Size must be at least 1")
+    @Max(value = 100, message = "Size cannot exceed 100")
+    private int size = 20;
+}
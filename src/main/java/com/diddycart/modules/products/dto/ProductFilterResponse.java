@@ -0,0 +1,34 @@
+package com.diddycart.modules.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Data Transfer Object for faceted catalog filtering responses
+// One page of matching products (newest first) plus facet counts. Each facet is counted
+// with every other active filter applied but not its own, so clients can show
+// "what you would get" for each alternative value.
+
+@Data
+public class ProductFilterResponse {
+
+    private List<ProductResponse> content;
+    private long totalElements;
+    private int page;
+    private int size;
+
+    private List<FacetCount> categories;
+    private List<FacetCount> vendors;
+    private List<FacetCount> priceRanges;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        private String value; // category/vendor ID or price range like "500-1000"
+        private String label;
+        private long count;
+    }
+}
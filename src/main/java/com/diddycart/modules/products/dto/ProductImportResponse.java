@@ -0,0 +1,32 @@
+package com.diddycart.modules.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Data Transfer Object for bulk product import results
+// Row counts, throughput and the rejected rows (line number + reason). Only the first
+// errors are listed, "failed" always holds the full count.
+
+@Data
+public class ProductImportResponse {
+
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private long durationMs;
+    private double rowsPerSecond;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
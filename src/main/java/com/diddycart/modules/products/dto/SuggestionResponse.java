@@ -0,0 +1,19 @@
+package com.diddycart.modules.products.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Data Transfer Object for typeahead suggestions
+// type is "product" or "category"; id lets the client jump straight to the product
+// or to a category-filtered listing.
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionResponse {
+
+    private String type;
+    private Long id;
+    private String text;
+}
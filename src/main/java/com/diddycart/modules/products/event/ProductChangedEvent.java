@@ -0,0 +1,28 @@
+package com.diddycart.modules.products.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+// Published after a catalog change so caches and indexes derived from products
+// can update only what the change touched.
+// categoryIds / vendorIds hold both the old and the new values when they moved.
+
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+
+    // Affected products (empty when the change is vendor-wide, e.g. a store rename)
+    private final Set<Long> productIds;
+
+    private final Set<Long> categoryIds;
+
+    private final Set<Long> vendorIds;
+}
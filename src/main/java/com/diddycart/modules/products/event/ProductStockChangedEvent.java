@@ -0,0 +1,16 @@
+package com.diddycart.modules.products.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published once a stock change has committed (orders, cancellations, restores)
+
+@Getter
+@AllArgsConstructor
+public class ProductStockChangedEvent {
+
+    private final Long productId;
+
+    // Units added (positive) or taken (negative)
+    private final int delta;
+}
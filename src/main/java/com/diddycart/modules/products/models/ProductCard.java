@@ -0,0 +1,49 @@
+package com.diddycart.modules.products.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Listing read model: one narrow row per product (product_cards, migration 005).
+// Written only by the database trigger on products, never by the application.
+@Data
+@Entity
+@Immutable
+@Table(name = "product_cards")
+public class ProductCard {
+
+    @Id
+    @Column(name = "product_id")
+    private Long id;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "price", nullable = false)
+    private BigDecimal price;
+
+    @Column(name = "image_url", columnDefinition = "TEXT")
+    private String imageUrl;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(name = "category_name")
+    private String categoryName;
+
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+
+    @Column(name = "store_name", nullable = false)
+    private String storeName;
+
+    @Column(name = "in_stock", nullable = false)
+    private Boolean inStock;
+
+    @Column(name = "added_at")
+    private Instant addedAt;
+
+}
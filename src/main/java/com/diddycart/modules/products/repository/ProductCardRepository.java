@@ -0,0 +1,41 @@
+package com.diddycart.modules.products.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.diddycart.modules.products.models.ProductCard;
+
+import java.util.List;
+
+// Catalog listings over the product_cards read model: single-table reads, no joins
+// (the inherited findAll(Pageable) serves the paginated listing)
+@Repository
+public interface ProductCardRepository extends JpaRepository<ProductCard, Long> {
+
+        // KEYSET: First slice of the catalog, newest first
+        List<ProductCard> findByOrderByIdDesc(Limit limit);
+
+        // KEYSET: Next slice after the last seen product ID (primary key index)
+        List<ProductCard> findByIdLessThanOrderByIdDesc(Long id, Limit limit);
+
+        // Full-text search over name + description, ranked by relevance.
+        // Matching and ranking stay on products (GIN on search_vector / trigram on name),
+        // the page itself is read from the cards by primary key.
+        // query: prefix tsquery like 'running:* & shoe:*', keyword: raw text for typo-tolerant
+        // trigram matching on name (pg_trgm, similarity >= pg_trgm.similarity_threshold)
+        @Query(value = "SELECT c.* FROM products p JOIN product_cards c ON c.product_id = p.id " +
+                        "WHERE p.search_vector @@ to_tsquery('simple', :query) OR p.name % :keyword " +
+                        "ORDER BY ts_rank_cd(p.search_vector, to_tsquery('simple', :query)) DESC, " +
+                        "similarity(p.name, :keyword) DESC, p.id DESC",
+                        countQuery = "SELECT count(*) FROM products p " +
+                                        "WHERE p.search_vector @@ to_tsquery('simple', :query) OR p.name % :keyword",
+                        nativeQuery = true)
+        Page<ProductCard> fullTextSearch(@Param("query") String query,
+                        @Param("keyword") String keyword,
+                        Pageable pageable);
+}
@@ -1,29 +1,112 @@
 package com.diddycart.modules.products.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.diddycart.modules.products.models.Product;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
-        // Search product by product name
-        Page<Product> findByNameContainingIgnoreCase(String keyword, Pageable pageable);
+        // Full product listings (ProductResponse) join category + vendor into the query; images
+        // arrive in one batched query (hibernate.default_batch_fetch_size). The card listings
+        // read ProductCardRepository (product_cards read model).
+
+        // Catalog page with category + vendor (count query stays a plain count)
+        @Override
+        @EntityGraph(attributePaths = { "category", "vendor" })
+        Page<Product> findAll(Pageable pageable);
+
+        // Product detail: category, vendor and images in one query
+        @EntityGraph(attributePaths = { "category", "vendor", "images" })
+        Optional<Product> findWithDetailsById(Long id);
+
+        // Several products by ID with category + vendor (change feed)
+        @EntityGraph(attributePaths = { "category", "vendor" })
+        List<Product> findByIdIn(Collection<Long> ids);
+
+        // KEYSET: First slice of the catalog, newest first
+        @EntityGraph(attributePaths = { "category", "vendor" })
+        List<Product> findByOrderByIdDesc(Limit limit);
+
+        // KEYSET: Next slice after the last seen product ID (primary key index)
+        @EntityGraph(attributePaths = { "category", "vendor" })
+        List<Product> findByIdLessThanOrderByIdDesc(Long id, Limit limit);
 
         // Find by product Category
+        @EntityGraph(attributePaths = { "category", "vendor" })
         Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
 
-        // Search + Filter by Price Range
-        @Query("SELECT p FROM Product p WHERE " +
-                        "LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-                        "AND p.price BETWEEN :minPrice AND :maxPrice")
-        Page<Product> searchProducts(@Param("keyword") String keyword,
+        // Full-text search over name + description (GIN on search_vector), ranked by relevance.
+        // Native, so no entity graph: categories, vendors and images of the page are batch-loaded.
+        // query: prefix tsquery like 'running:* & shoe:*', keyword: raw text for typo-tolerant
+        // trigram matching on name (pg_trgm, similarity >= pg_trgm.similarity_threshold)
+        @Query(value = "SELECT p.* FROM products p " +
+                        "WHERE p.search_vector @@ to_tsquery('simple', :query) OR p.name % :keyword " +
+                        "ORDER BY ts_rank_cd(p.search_vector, to_tsquery('simple', :query)) DESC, " +
+                        "similarity(p.name, :keyword) DESC, p.id DESC",
+                        countQuery = "SELECT count(*) FROM products p " +
+                                        "WHERE p.search_vector @@ to_tsquery('simple', :query) OR p.name % :keyword",
+                        nativeQuery = true)
+        Page<Product> fullTextSearch(@Param("query") String query,
+                        @Param("keyword") String keyword,
+                        Pageable pageable);
+
+        // Full-text search returning matching IDs only (facet filtering)
+        @Query(value = "SELECT p.id FROM products p " +
+                        "WHERE p.search_vector @@ to_tsquery('simple', :query) OR p.name % :keyword",
+                        nativeQuery = true)
+        List<Long> fullTextSearchIds(@Param("query") String query, @Param("keyword") String keyword);
+
+        // Full-text search + Filter by Price Range
+        @Query(value = "SELECT p.* FROM products p " +
+                        "WHERE (p.search_vector @@ to_tsquery('simple', :query) OR p.name % :keyword) " +
+                        "AND p.price BETWEEN :minPrice AND :maxPrice " +
+                        "ORDER BY ts_rank_cd(p.search_vector, to_tsquery('simple', :query)) DESC, p.id DESC",
+                        countQuery = "SELECT count(*) FROM products p " +
+                                        "WHERE (p.search_vector @@ to_tsquery('simple', :query) OR p.name % :keyword) " +
+                                        "AND p.price BETWEEN :minPrice AND :maxPrice",
+                        nativeQuery = true)
+        Page<Product> searchProducts(@Param("query") String query,
+                        @Param("keyword") String keyword,
                         @Param("minPrice") Double minPrice,
                         @Param("maxPrice") Double maxPrice,
                         Pageable pageable);
+
+        // STOCK: Current stock of one product
+        @Query("SELECT p.stockQuantity FROM Product p WHERE p.id = :id")
+        Optional<Integer> findStockQuantityById(@Param("id") Long id);
+
+        // STOCK: Current stock of several products as [id, stockQuantity] rows
+        @Query("SELECT p.id, p.stockQuantity FROM Product p WHERE p.id IN :ids")
+        List<Object[]> findStockQuantities(@Param("ids") Collection<Long> ids);
+
+        // STOCK: Atomically take stock, returns 0 if there is not enough left
+        @Modifying
+        @Transactional
+        @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity " +
+                        "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+        int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+        // STOCK: Atomically give stock back
+        @Modifying
+        @Transactional
+        @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.id = :id")
+        int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+        // Newest product IDs (cache warm-up filler when there is little order history)
+        @Query("SELECT p.id FROM Product p ORDER BY p.id DESC")
+        List<Long> findLatestIds(Pageable pageable);
 }
\ No newline at end of file
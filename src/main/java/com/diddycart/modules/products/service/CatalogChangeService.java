@@ -0,0 +1,118 @@
+package com.diddycart.modules.products.service;
+
+import com.diddycart.common.pagination.CursorCodec;
+import com.diddycart.modules.products.dto.ProductChangesResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Delta sync feed for clients that keep a local copy of the catalog.
+//
+// Changes are read in (changed_at, id) order from two indexed sources: products.updated_at
+// (inserts, updates, stock moves, image changes, category/store renames; all stamped by
+// triggers) and the catalog_tombstones rows written when a product is deleted. The
+// watermark is the last change returned, encoded as an opaque cursor.
+//
+// A change is stamped when the row is written, not when its transaction commits, so a slow
+// transaction (bulk update, import batch, cart flush) could commit "behind" a watermark a
+// client already holds. The feed therefore stops before the start of the oldest transaction
+// in this database that has written anything and is still running: every uncommitted change
+// is stamped at or after that point, every change before it is committed. pg_stat_activity
+// shows backend_xid only for the app's own role unless it has pg_read_all_stats; grant that
+// if another role writes the catalog.
+@Service
+public class CatalogChangeService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeService.class);
+
+    public static final int DEFAULT_LIMIT = 200;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final Duration TOMBSTONE_RETENTION = Duration.ofDays(30);
+
+    // Both branches are index range scans ((updated_at, id) / (entity, deleted_at, entity_id)),
+    // bounded by the horizon (start of the oldest running writer, now if there is none)
+    private static final String CHANGES_QUERY = "WITH horizon AS (" +
+            "SELECT COALESCE(min(xact_start), clock_timestamp()) AS at FROM pg_stat_activity " +
+            "WHERE datname = current_database() AND backend_xid IS NOT NULL) " +
+            "SELECT id, changed_at, deleted FROM (" +
+            "(SELECT p.id, p.updated_at AS changed_at, FALSE AS deleted FROM products p " +
+            "WHERE (p.updated_at, p.id) > (?, ?) AND p.updated_at < (SELECT at FROM horizon) " +
+            "ORDER BY p.updated_at, p.id LIMIT ?) " +
+            "UNION ALL " +
+            "(SELECT t.entity_id, t.deleted_at, TRUE FROM catalog_tombstones t " +
+            "WHERE t.entity = 'product' AND (t.deleted_at, t.entity_id) > (?, ?) " +
+            "AND t.deleted_at < (SELECT at FROM horizon) " +
+            "ORDER BY t.deleted_at, t.entity_id LIMIT ?)" +
+            ") changes ORDER BY changed_at, id LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    // Changes after the watermark (null = from the beginning, i.e. a full initial sync)
+    public ProductChangesResponse getChanges(String since, Integer limit) {
+        int max = limit == null || limit < 1 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        CursorCodec.TimeAndId after = since == null || since.isBlank()
+                ? new CursorCodec.TimeAndId(Instant.EPOCH, 0L)
+                : CursorCodec.decodeTimeAndId(since);
+
+        ProductChangesResponse response = new ProductChangesResponse();
+        if (after.time().isAfter(Instant.EPOCH)
+                && after.time().isBefore(Instant.now().minus(TOMBSTONE_RETENTION))) {
+            response.setResetRequired(true); // deletes before this may already be purged
+            return response;
+        }
+
+        Timestamp afterTime = Timestamp.from(after.time());
+        List<Change> changes = jdbcTemplate.query(CHANGES_QUERY,
+                (rs, rowNum) -> new Change(rs.getLong(1), rs.getTimestamp(2).toInstant(), rs.getBoolean(3)),
+                afterTime, after.id(), max + 1,
+                afterTime, after.id(), max + 1,
+                max + 1);
+
+        boolean hasMore = changes.size() > max;
+        List<Change> visible = hasMore ? changes.subList(0, max) : changes;
+
+        List<Long> modified = new ArrayList<>();
+        for (Change change : visible) {
+            if (change.deleted()) {
+                response.getDeletedProductIds().add(change.id());
+            } else {
+                modified.add(change.id());
+            }
+        }
+        // A product deleted since it was read shows up as a tombstone in a later call
+        response.setProducts(productService.getProductsByIds(modified));
+        response.setHasMore(hasMore);
+
+        Change last = visible.isEmpty() ? null : visible.get(visible.size() - 1);
+        response.setNextSince(last != null
+                ? CursorCodec.encodeTimeAndId(last.changedAt(), last.id())
+                : since == null || since.isBlank() ? null : since);
+        return response;
+    }
+
+    // Drop tombstones past the retention window (clients that old get resetRequired)
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeTombstones() {
+        int purged = jdbcTemplate.update("DELETE FROM catalog_tombstones WHERE deleted_at < ?",
+                Timestamp.from(Instant.now().minus(TOMBSTONE_RETENTION)));
+        log.info("Catalog tombstones purged | Rows: {}", purged);
+    }
+
+    // One entry of the feed
+    private record Change(long id, Instant changedAt, boolean deleted) {
+    }
+}
@@ -0,0 +1,426 @@
+package com.diddycart.modules.products.service;
+
+import com.diddycart.modules.identity.models.Vendor;
+import com.diddycart.modules.identity.repository.VendorRepository;
+import com.diddycart.modules.products.dto.ProductFilterRequest;
+import com.diddycart.modules.products.dto.ProductFilterResponse;
+import com.diddycart.modules.products.dto.ProductFilterResponse.FacetCount;
+import com.diddycart.modules.products.dto.ProductResponse;
+import com.diddycart.modules.products.event.ProductChangedEvent;
+import com.diddycart.modules.products.event.ProductStockChangedEvent;
+import com.diddycart.modules.products.models.Category;
+import com.diddycart.modules.products.repository.CategoryRepository;
+import com.diddycart.modules.products.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory columnar index of the catalog for faceted filtering.
+//
+// Every product gets a slot (in ID order, new products append). Per slot we keep the
+// category, vendor, price (in paise) and stock in plain arrays, plus a bitmap per
+// category / vendor and one for "in stock". A filter is a handful of bitmap ANDs, and
+// each facet is counted with one pass over the matching slots, instead of a GROUP BY
+// per facet per request. Keyword matches come from the full-text index as an ID set.
+//
+// Kept current from ProductChangedEvents and stock deltas, and rebuilt periodically.
+@Service
+public class CatalogFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogFacetIndex.class);
+
+    // Lower bounds of the price facet buckets (rupees), the last bucket is open-ended
+    private static final long[] PRICE_BUCKETS = { 0, 500, 1_000, 2_500, 5_000, 10_000 };
+
+    // Vendor facet is cut to the busiest values
+    private static final int MAX_VENDOR_FACETS = 20;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Swapped and mutated under the lock
+    private volatile Columns columns;
+
+    // Build once the app is up (before readiness)
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    // Full rebuild bounds any drift from missed incremental updates
+    @Scheduled(fixedDelay = 1_800_000, initialDelay = 1_800_000)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Columns fresh = new Columns();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            // Streamed in ID order so slots end up newest-last
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(10_000);
+            streaming.query("SELECT id, category_id, vendor_id, price, stock_quantity FROM products ORDER BY id",
+                    (RowCallbackHandler) rs -> fresh.upsert(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                            toPaise(rs.getBigDecimal(4)), rs.getInt(5)));
+        });
+
+        lock.writeLock().lock();
+        try {
+            columns = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Catalog facet index built | Products: {} | Took: {}ms", fresh.live.cardinality(),
+                System.currentTimeMillis() - start);
+    }
+
+    // Requests arriving before the startup build wait for one build instead of each running their own
+    private void ensureBuilt() {
+        if (columns != null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (columns == null) {
+                rebuild(); // the write lock is reentrant
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Re-read the changed products (after commit)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductIds().isEmpty()) {
+            return; // vendor-wide change (e.g. store rename), facets hold IDs only
+        }
+
+        Map<Long, Object[]> rows = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, category_id, vendor_id, price, stock_quantity FROM products WHERE id = ANY (?)",
+                (RowCallbackHandler) rs -> rows.put(rs.getLong(1), new Object[] { rs.getLong(2), rs.getLong(3),
+                        toPaise(rs.getBigDecimal(4)), rs.getInt(5) }),
+                (Object) event.getProductIds().toArray(new Long[0]));
+
+        lock.writeLock().lock();
+        try {
+            if (columns == null) {
+                return;
+            }
+            for (Long id : event.getProductIds()) {
+                Object[] row = rows.get(id);
+                if (row == null) {
+                    columns.remove(id);
+                } else {
+                    columns.upsert(id, (Long) row[0], (Long) row[1], (Long) row[2], (Integer) row[3]);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Stock moved by an order, cancellation or restore (published after commit)
+    @EventListener
+    public void onStockChanged(ProductStockChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (columns != null) {
+                columns.adjustStock(event.getProductId(), event.getDelta());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Filter the catalog and count facets
+    public ProductFilterResponse filter(ProductFilterRequest req) {
+        // Keyword goes through the GIN index first, outside the lock
+        List<Long> keywordIds = null;
+        if (req.getKeyword() != null && !req.getKeyword().isBlank()) {
+            String query = ProductService.toPrefixQuery(req.getKeyword());
+            keywordIds = query.isEmpty() ? List.of()
+                    : productRepository.fullTextSearchIds(query, req.getKeyword().trim());
+        }
+
+        List<Long> pageIds = new ArrayList<>();
+        long total;
+        Map<Long, Long> categoryCounts = new HashMap<>();
+        Map<Long, Long> vendorCounts = new HashMap<>();
+        long[] priceCounts = new long[PRICE_BUCKETS.length];
+
+        ensureBuilt();
+
+        lock.readLock().lock();
+        try {
+            Columns c = columns;
+            BitSet keyword = keywordIds != null ? c.slotsOf(keywordIds) : null;
+            BitSet category = req.getCategoryId() != null && !req.getCategoryId().isEmpty()
+                    ? c.union(c.byCategory, req.getCategoryId())
+                    : null;
+            BitSet vendor = req.getVendorId() != null && !req.getVendorId().isEmpty()
+                    ? c.union(c.byVendor, req.getVendorId())
+                    : null;
+            BitSet price = req.getMinPrice() != null || req.getMaxPrice() != null
+                    ? c.priceRange(req.getMinPrice() != null ? toPaise(req.getMinPrice()) : Long.MIN_VALUE,
+                            req.getMaxPrice() != null ? toPaise(req.getMaxPrice()) : Long.MAX_VALUE)
+                    : null;
+            BitSet stock = Boolean.TRUE.equals(req.getInStock()) ? c.inStock : null;
+
+            // Matches: every filter
+            BitSet matches = and(c.live, keyword, category, vendor, price, stock);
+            total = matches.cardinality();
+
+            // Newest first: walk slots from the end (long: a huge page number must not wrap)
+            long skip = (long) req.getPage() * req.getSize();
+            for (int slot = matches.length() - 1; slot >= 0 && pageIds.size() < req.getSize();
+                    slot = matches.previousSetBit(slot - 1)) {
+                if (skip-- > 0) {
+                    continue;
+                }
+                pageIds.add(c.ids[slot]);
+            }
+
+            // Each facet ignores its own filter
+            BitSet forCategories = and(c.live, keyword, vendor, price, stock);
+            for (int slot = forCategories.nextSetBit(0); slot >= 0; slot = forCategories.nextSetBit(slot + 1)) {
+                categoryCounts.merge(c.categoryIds[slot], 1L, Long::sum);
+            }
+            BitSet forVendors = and(c.live, keyword, category, price, stock);
+            for (int slot = forVendors.nextSetBit(0); slot >= 0; slot = forVendors.nextSetBit(slot + 1)) {
+                vendorCounts.merge(c.vendorIds[slot], 1L, Long::sum);
+            }
+            BitSet forPrices = and(c.live, keyword, category, vendor, stock);
+            for (int slot = forPrices.nextSetBit(0); slot >= 0; slot = forPrices.nextSetBit(slot + 1)) {
+                priceCounts[bucketOf(c.pricePaise[slot])]++;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        ProductFilterResponse response = new ProductFilterResponse();
+        response.setContent(loadProducts(pageIds));
+        response.setTotalElements(total);
+        response.setPage(req.getPage());
+        response.setSize(req.getSize());
+        response.setCategories(categoryFacets(categoryCounts));
+        response.setVendors(vendorFacets(vendorCounts));
+        response.setPriceRanges(priceFacets(priceCounts));
+        return response;
+    }
+
+    // Page content comes from the product cache (mostly L1 hits)
+    private List<ProductResponse> loadProducts(List<Long> ids) {
+        List<ProductResponse> products = new ArrayList<>();
+        for (Long id : ids) {
+            try {
+                products.add(productService.getProductById(id));
+            } catch (RuntimeException e) {
+                // Deleted since the index saw it, the next event/rebuild drops it
+            }
+        }
+        return products;
+    }
+
+    private List<FacetCount> categoryFacets(Map<Long, Long> counts) {
+        Map<Long, String> names = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            names.put(category.getId(), category.getType());
+        }
+        return counts.entrySet().stream()
+                .map(e -> new FacetCount(e.getKey() == 0 ? "none" : String.valueOf(e.getKey()),
+                        e.getKey() == 0 ? "Uncategorized" : names.getOrDefault(e.getKey(), "Unknown"),
+                        e.getValue()))
+                .sorted(Comparator.comparingLong(FacetCount::getCount).reversed())
+                .toList();
+    }
+
+    private List<FacetCount> vendorFacets(Map<Long, Long> counts) {
+        List<Map.Entry<Long, Long>> top = counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(MAX_VENDOR_FACETS)
+                .toList();
+
+        Map<Long, String> names = new HashMap<>();
+        for (Vendor vendor : vendorRepository.findAllById(top.stream().map(Map.Entry::getKey).toList())) {
+            names.put(vendor.getId(), vendor.getStoreName());
+        }
+        return top.stream()
+                .map(e -> new FacetCount(String.valueOf(e.getKey()), names.getOrDefault(e.getKey(), "Unknown"),
+                        e.getValue()))
+                .toList();
+    }
+
+    private List<FacetCount> priceFacets(long[] counts) {
+        List<FacetCount> facets = new ArrayList<>();
+        for (int i = 0; i < PRICE_BUCKETS.length; i++) {
+            String range = i + 1 < PRICE_BUCKETS.length
+                    ? PRICE_BUCKETS[i] + "-" + PRICE_BUCKETS[i + 1]
+                    : PRICE_BUCKETS[i] + "+";
+            facets.add(new FacetCount(range, range, counts[i]));
+        }
+        return facets;
+    }
+
+    private static int bucketOf(long pricePaise) {
+        int bucket = 0;
+        while (bucket + 1 < PRICE_BUCKETS.length && pricePaise >= PRICE_BUCKETS[bucket + 1] * 100) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    // AND of the non-null filters (always a fresh BitSet)
+    private static BitSet and(BitSet base, BitSet... filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static long toPaise(BigDecimal price) {
+        return price == null ? 0 : price.movePointRight(2).longValue();
+    }
+
+    // Column store: slot -> attributes, value -> slots
+    private static class Columns {
+        long[] ids = new long[1024];
+        long[] categoryIds = new long[1024]; // 0 = no category
+        long[] vendorIds = new long[1024];
+        long[] pricePaise = new long[1024];
+        int[] stock = new int[1024];
+        int size = 0;
+
+        final Map<Long, Integer> slotById = new HashMap<>();
+        final Map<Long, BitSet> byCategory = new HashMap<>();
+        final Map<Long, BitSet> byVendor = new HashMap<>();
+        final BitSet inStock = new BitSet();
+        final BitSet live = new BitSet();
+
+        void upsert(long id, long categoryId, long vendorId, long price, int quantity) {
+            Integer slot = slotById.get(id);
+            if (slot == null) {
+                slot = append(id);
+            } else {
+                byCategory.get(categoryIds[slot]).clear(slot);
+                byVendor.get(vendorIds[slot]).clear(slot);
+            }
+
+            categoryIds[slot] = categoryId;
+            vendorIds[slot] = vendorId;
+            pricePaise[slot] = price;
+            stock[slot] = quantity;
+            byCategory.computeIfAbsent(categoryId, k -> new BitSet()).set(slot);
+            byVendor.computeIfAbsent(vendorId, k -> new BitSet()).set(slot);
+            inStock.set(slot, quantity > 0);
+            live.set(slot);
+        }
+
+        void remove(long id) {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                live.clear(slot);
+                inStock.clear(slot);
+                byCategory.get(categoryIds[slot]).clear(slot);
+                byVendor.get(vendorIds[slot]).clear(slot);
+            }
+        }
+
+        void adjustStock(long id, int delta) {
+            Integer slot = slotById.get(id);
+            if (slot != null) {
+                stock[slot] += delta;
+                inStock.set(slot, stock[slot] > 0);
+            }
+        }
+
+        BitSet slotsOf(Collection<Long> productIds) {
+            BitSet slots = new BitSet();
+            for (Long id : productIds) {
+                Integer slot = slotById.get(id);
+                if (slot != null) {
+                    slots.set(slot);
+                }
+            }
+            return slots;
+        }
+
+        BitSet union(Map<Long, BitSet> index, Collection<Long> values) {
+            BitSet slots = new BitSet();
+            for (Long value : values) {
+                BitSet bits = index.get(value);
+                if (bits != null) {
+                    slots.or(bits);
+                }
+            }
+            return slots;
+        }
+
+        // Price is a plain column scan over live slots
+        BitSet priceRange(long min, long max) {
+            BitSet slots = new BitSet();
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                if (pricePaise[slot] >= min && pricePaise[slot] <= max) {
+                    slots.set(slot);
+                }
+            }
+            return slots;
+        }
+
+        private int append(long id) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                vendorIds = Arrays.copyOf(vendorIds, capacity);
+                pricePaise = Arrays.copyOf(pricePaise, capacity);
+                stock = Arrays.copyOf(stock, capacity);
+            }
+            int slot = size++;
+            ids[slot] = id;
+            slotById.put(id, slot);
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.diddycart.modules.products.service;
+
+import com.diddycart.modules.products.dto.SuggestionResponse;
+import com.diddycart.modules.products.event.ProductChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory typeahead over product names and category types.
+//
+// A character trie where every node keeps its best entries (highest popularity first),
+// so a lookup is one walk down the prefix and a copy of that node's list, whatever the
+// catalog size. Each entry is indexed from every word start ("Wireless Headphones" is
+// found by "wir" and "head"), only down to MAX_DEPTH characters to bound memory.
+//
+// Popularity: units sold over the lookback window (categories: the sum of their
+// products). Product create/update/delete patch the trie; the periodic rebuild
+// refreshes popularity and restores entries trimmed from a node's list by removals.
+@Service
+public class CatalogSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSuggestIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    // Entries kept per node: some slack so removals rarely empty a list before the rebuild
+    private static final int KEPT_PER_NODE = MAX_SUGGESTIONS * 2;
+    private static final int MAX_DEPTH = 24;
+    private static final int MAX_WORDS = 8;
+    private static final Duration POPULARITY_LOOKBACK = Duration.ofDays(30);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Swapped and mutated under the lock
+    private volatile Trie trie;
+
+    // Products changed while a rebuild reads its snapshot (under the lock, null when no rebuild
+    // runs): re-read and patched into the fresh trie before it replaces the patched old one
+    private Set<Long> changedDuringRebuild;
+
+    private Timer lookups;
+
+    @PostConstruct
+    public void registerMetrics() {
+        this.lookups = Timer.builder("diddycart.catalog.suggest")
+                .description("Time spent answering a typeahead lookup")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Build once the app is up (before readiness)
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    // Full rebuild refreshes popularity and compacts the trie
+    @Scheduled(fixedDelay = 1_800_000, initialDelay = 1_800_000)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Trie fresh = new Trie();
+
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            readSnapshot(fresh);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        // Changes that raced the snapshot: a short re-read under the lock, so none is lost in the swap
+        lock.writeLock().lock();
+        try {
+            Set<Long> changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            if (!changed.isEmpty()) {
+                patch(fresh, changed, readNames(changed));
+            }
+            trie = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Catalog suggest index built | Entries: {} | Nodes: {} | Took: {}ms", fresh.entries.size(),
+                fresh.nodeCount, System.currentTimeMillis() - start);
+    }
+
+    // Products and categories with their popularity, in one read-only transaction
+    private void readSnapshot(Trie fresh) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            Map<Long, Long> unitsSold = new HashMap<>();
+            jdbcTemplate.query("SELECT oi.product_id, SUM(oi.quantity) FROM orderitems oi " +
+                    "JOIN orders o ON o.id = oi.order_id " +
+                    "WHERE o.created_at >= ? AND oi.product_id IS NOT NULL GROUP BY oi.product_id",
+                    (RowCallbackHandler) rs -> unitsSold.put(rs.getLong(1), rs.getLong(2)),
+                    Timestamp.from(Instant.now().minus(POPULARITY_LOOKBACK)));
+
+            // Streamed, only id/name/category leave the database
+            Map<Long, Long> categoryWeights = new HashMap<>();
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(10_000);
+            streaming.query("SELECT id, name, category_id FROM products",
+                    (RowCallbackHandler) rs -> {
+                        long id = rs.getLong(1);
+                        long weight = unitsSold.getOrDefault(id, 0L);
+                        fresh.put(new Entry(Kind.PRODUCT, id, rs.getString(2), weight));
+                        long categoryId = rs.getLong(3);
+                        if (!rs.wasNull()) {
+                            categoryWeights.merge(categoryId, weight + 1, Long::sum);
+                        }
+                    });
+
+            jdbcTemplate.query("SELECT id, type FROM category",
+                    (RowCallbackHandler) rs -> fresh.put(new Entry(Kind.CATEGORY, rs.getLong(1), rs.getString(2),
+                            categoryWeights.getOrDefault(rs.getLong(1), 0L))));
+        });
+    }
+
+    // Build from rows already in memory (benchmarks), same weighting as rebuild():
+    // product names and categories by ID, units sold by product ID
+    void rebuildFrom(Map<Long, String> productNames, Map<Long, Long> productCategories,
+            Map<Long, String> categoryTypes, Map<Long, Long> unitsSold) {
+        Trie fresh = new Trie();
+        Map<Long, Long> categoryWeights = new HashMap<>();
+        productNames.forEach((id, name) -> {
+            long weight = unitsSold.getOrDefault(id, 0L);
+            fresh.put(new Entry(Kind.PRODUCT, id, name, weight));
+            Long categoryId = productCategories.get(id);
+            if (categoryId != null) {
+                categoryWeights.merge(categoryId, weight + 1, Long::sum);
+            }
+        });
+        categoryTypes.forEach((id, type) -> fresh.put(new Entry(Kind.CATEGORY, id, type,
+                categoryWeights.getOrDefault(id, 0L))));
+        install(fresh);
+    }
+
+    // Re-read the changed product names (after commit), popularity is kept until the rebuild
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductIds().isEmpty()) {
+            return; // vendor-wide change (e.g. store rename), names are untouched
+        }
+
+        Map<Long, String> names = readNames(event.getProductIds());
+
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(event.getProductIds());
+            }
+            if (trie != null) {
+                patch(trie, event.getProductIds(), names);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, String> readNames(Collection<Long> ids) {
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM products WHERE id = ANY (?)",
+                (RowCallbackHandler) rs -> names.put(rs.getLong(1), rs.getString(2)),
+                (Object) ids.toArray(new Long[0]));
+        return names;
+    }
+
+    // Replace the entries of these products (missing from names: deleted), keeping their popularity
+    private static void patch(Trie target, Collection<Long> ids, Map<Long, String> names) {
+        for (Long id : ids) {
+            Entry previous = target.remove(Kind.PRODUCT, id);
+            String name = names.get(id);
+            if (name != null) {
+                target.put(new Entry(Kind.PRODUCT, id, name, previous != null ? previous.weight : 0));
+            }
+        }
+    }
+
+    // Best matches for a typed prefix, most popular first
+    public List<SuggestionResponse> suggest(String prefix, Integer limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int max = limit == null || limit < 1 ? MAX_SUGGESTIONS : Math.min(limit, MAX_SUGGESTIONS);
+
+        long start = System.nanoTime();
+        try {
+            return lookup(normalized, max);
+        } finally {
+            lookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Untimed lookup of an already normalized prefix (also what the benchmark measures)
+    List<SuggestionResponse> lookup(String normalized, int max) {
+        lock.readLock().lock();
+        try {
+            if (trie == null) {
+                return Collections.emptyList();
+            }
+            return trie.lookup(normalized, max).stream()
+                    .map(entry -> new SuggestionResponse(entry.kind.label, entry.id, entry.text))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void install(Trie fresh) {
+        lock.writeLock().lock();
+        try {
+            trie = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Lower-case letters/digits separated by single spaces: "Wi-Fi  Router!" -> "wi fi router"
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return String.join(" ", Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toList());
+    }
+
+    private enum Kind {
+        PRODUCT("product"),
+        CATEGORY("category");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+
+    // One suggestion: display text plus its normalized form and popularity
+    private static final class Entry {
+        final Kind kind;
+        final long id;
+        final String text;
+        final String normalized;
+        final long weight;
+
+        Entry(Kind kind, long id, String text, long weight) {
+            this.kind = kind;
+            this.id = id;
+            this.text = text;
+            this.normalized = normalize(text);
+            this.weight = weight;
+        }
+
+        // Start offsets of the (first MAX_WORDS) words
+        int[] wordStarts() {
+            int[] starts = new int[MAX_WORDS];
+            int count = 0;
+            for (int i = 0; i < normalized.length() && count < MAX_WORDS; i++) {
+                if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                    starts[count++] = i;
+                }
+            }
+            return Arrays.copyOf(starts, count);
+        }
+
+        // Full check for prefixes longer than the trie depth
+        boolean matches(String prefix) {
+            for (int start : wordStarts()) {
+                if (normalized.startsWith(prefix, start)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Most popular first, then shorter (closer) text, then newest
+    private static final Comparator<Entry> RANKING = Comparator.<Entry>comparingLong(e -> e.weight).reversed()
+            .thenComparingInt(e -> e.text.length())
+            .thenComparing(Comparator.<Entry>comparingLong(e -> e.id).reversed());
+
+    // Children as a sorted char array (binary search), best entries as a small list
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        final List<Entry> best = new ArrayList<>(2);
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char key) {
+            int index = -(Arrays.binarySearch(keys, key) + 1);
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newKeys[index] = key;
+            newChildren[index] = new Node();
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[index];
+        }
+
+        void offer(Entry entry) {
+            if (best.contains(entry)) {
+                return; // same node reached from two word starts
+            }
+            if (best.size() == KEPT_PER_NODE && RANKING.compare(entry, best.get(best.size() - 1)) >= 0) {
+                return;
+            }
+            int index = Collections.binarySearch(best, entry, RANKING);
+            best.add(index >= 0 ? index : -(index + 1), entry);
+            if (best.size() > KEPT_PER_NODE) {
+                best.remove(best.size() - 1);
+            }
+        }
+    }
+
+    private static final class Trie {
+        final Node root = new Node();
+        final Map<String, Entry> entries = new HashMap<>();
+        int nodeCount = 1;
+
+        void put(Entry entry) {
+            if (entry.normalized.isEmpty()) {
+                return;
+            }
+            entries.put(key(entry.kind, entry.id), entry);
+            for (int start : entry.wordStarts()) {
+                Node node = root;
+                int end = Math.min(entry.normalized.length(), start + MAX_DEPTH);
+                for (int i = start; i < end; i++) {
+                    char c = entry.normalized.charAt(i);
+                    Node next = node.child(c);
+                    if (next == null) {
+                        next = node.addChild(c);
+                        nodeCount++;
+                    }
+                    next.offer(entry);
+                    node = next;
+                }
+            }
+        }
+
+        Entry remove(Kind kind, long id) {
+            Entry entry = entries.remove(key(kind, id));
+            if (entry == null) {
+                return null;
+            }
+            for (int start : entry.wordStarts()) {
+                Node node = root;
+                int end = Math.min(entry.normalized.length(), start + MAX_DEPTH);
+                for (int i = start; i < end && node != null; i++) {
+                    node = node.child(entry.normalized.charAt(i));
+                    if (node != null) {
+                        node.best.remove(entry);
+                    }
+                }
+            }
+            return entry;
+        }
+
+        List<Entry> lookup(String prefix, int limit) {
+            Node node = root;
+            int depth = Math.min(prefix.length(), MAX_DEPTH);
+            for (int i = 0; i < depth && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+
+            List<Entry> result = new ArrayList<>(limit);
+            for (Entry entry : node.best) {
+                if (prefix.length() <= MAX_DEPTH || entry.matches(prefix)) {
+                    result.add(entry);
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static String key(Kind kind, long id) {
+            return kind.label + ":" + id;
+        }
+    }
+}
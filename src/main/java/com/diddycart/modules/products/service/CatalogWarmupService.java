@@ -0,0 +1,144 @@
+package com.diddycart.modules.products.service;
+
+import com.diddycart.common.cache.CacheProperties;
+import com.diddycart.modules.identity.service.VendorService;
+import com.diddycart.modules.products.repository.ProductRepository;
+import com.diddycart.modules.sales.repository.OrderItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Preloads the best-selling products and their vendors into the cache after a deploy.
+// Runs synchronously on ApplicationReadyEvent, so the readiness probe only reports
+// ACCEPTING_TRAFFIC once the warm-up has finished or its time budget ran out.
+@Service
+public class CatalogWarmupService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogWarmupService.class);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Warm products and vendors caches before the node takes traffic
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        CacheProperties.Warmup settings = cacheProperties.getWarmup();
+        if (!settings.isEnabled() || settings.getTopN() <= 0) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long deadline = System.currentTimeMillis() + settings.getBudget().toMillis();
+        Instant since = Instant.now().minus(settings.getLookback());
+        PageRequest topN = PageRequest.of(0, settings.getTopN());
+
+        int products = 0;
+        int vendors = 0;
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            // Best sellers first, topped up with the newest products when order history is thin
+            Set<Long> productIds = new LinkedHashSet<>(orderItemRepository.findTopProductIds(since, topN));
+            if (productIds.size() < settings.getTopN()) {
+                productIds.addAll(productRepository.findLatestIds(topN));
+            }
+            products = load("products", productIds.stream().limit(settings.getTopN()).toList(),
+                    productService::getProductById, executor, deadline);
+
+            List<Long> vendorIds = orderItemRepository.findTopVendorIds(since, topN);
+            vendors = load("vendors", vendorIds, vendorService::getVendorById, executor, deadline);
+        } catch (RuntimeException e) {
+            // A failed warm-up only means a cold start, never a failed start
+            log.warn("Cache warm-up aborted: {}", e.getMessage());
+        } finally {
+            // Don't wait for loads still running past the budget
+            executor.shutdownNow();
+            long nanos = sample.stop(meterRegistry.timer("diddycart.cache.warmup.duration"));
+            log.info("Cache warm-up finished | Products: {} | Vendors: {} | Took: {}ms",
+                    products, vendors, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    // Load IDs through the cached service method in parallel batches, returns how many were loaded
+    private int load(String cacheName, List<Long> ids, Consumer<Long> loader, ExecutorService executor,
+            long deadline) {
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        int batchSize = Math.max(1, cacheProperties.getWarmup().getBatchSize());
+
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                log.warn("Cache warm-up budget exhausted | Cache: {} | Loaded: {}/{}", cacheName, loaded.get(),
+                        ids.size());
+                break;
+            }
+
+            List<CompletableFuture<Void>> batch = new ArrayList<>();
+            for (Long id : ids.subList(from, Math.min(from + batchSize, ids.size()))) {
+                batch.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        loader.accept(id);
+                        loaded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet(); // e.g. deleted since it was ordered
+                    }
+                }, executor));
+            }
+
+            try {
+                CompletableFuture.allOf(batch.toArray(new CompletableFuture[0])).get(remaining, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                batch.forEach(future -> future.cancel(true));
+                log.warn("Cache warm-up budget exhausted | Cache: {} | Loaded: {}/{}", cacheName, loaded.get(),
+                        ids.size());
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                // Individual failures are counted above
+            }
+        }
+
+        meterRegistry.counter("diddycart.cache.warmup.entries", "cache", cacheName, "result", "loaded")
+                .increment(loaded.get());
+        meterRegistry.counter("diddycart.cache.warmup.entries", "cache", cacheName, "result", "failed")
+                .increment(failed.get());
+        return loaded.get();
+    }
+}
@@ -0,0 +1,161 @@
+package com.diddycart.modules.products.service;
+
+import com.diddycart.common.cache.TwoLevelCacheManager;
+import com.diddycart.modules.products.dto.ProductBulkUpdateRequest;
+import com.diddycart.modules.products.dto.ProductBulkUpdateResponse;
+import com.diddycart.modules.products.event.ProductChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Bulk price/stock updates for a vendor's catalog.
+//
+// Items go to Postgres as column arrays in one UPDATE ... FROM unnest(...) per chunk;
+// the vendor's ownership is part of the WHERE clause, so products of other vendors (or
+// unknown IDs) are simply not matched and come back as skipped. The whole request is one
+// transaction. After commit, price changes evict their "products" snapshots in one
+// pipelined Redis round trip, and stock changes drop the live stock counters.
+@Service
+public class ProductBulkUpdateService {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String UPDATE_CHUNK = "UPDATE products p " +
+            "SET price = COALESCE(u.price, p.price), " +
+            "stock_quantity = COALESCE(u.stock_quantity, p.stock_quantity) " +
+            "FROM unnest(?::bigint[], ?::numeric[], ?::int[]) AS u(id, price, stock_quantity) " +
+            "WHERE p.id = u.id AND p.vendor_id = (SELECT v.id FROM vendors v WHERE v.user_id = ?) " +
+            "RETURNING p.id, p.category_id, p.vendor_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TwoLevelCacheManager twoLevelCacheManager;
+
+    @Autowired
+    private ProductStockService productStockService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Apply the changes the vendor owns, report the rest as skipped
+    @Transactional
+    public ProductBulkUpdateResponse bulkUpdate(ProductBulkUpdateRequest req, Long vendorUserId) {
+        // Last item wins when a product is listed twice
+        Map<Long, ProductBulkUpdateRequest.Item> items = new LinkedHashMap<>();
+        for (ProductBulkUpdateRequest.Item item : req.getItems()) {
+            if (item.getPrice() == null && item.getStockQuantity() == null) {
+                throw new RuntimeException("Product " + item.getProductId() + ": nothing to update");
+            }
+            items.put(item.getProductId(), item);
+        }
+
+        List<ProductBulkUpdateRequest.Item> unique = new ArrayList<>(items.values());
+        Set<Long> updated = new LinkedHashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        Set<Long> vendorIds = new HashSet<>();
+        for (int from = 0; from < unique.size(); from += CHUNK_SIZE) {
+            List<ProductBulkUpdateRequest.Item> chunk = unique.subList(from,
+                    Math.min(unique.size(), from + CHUNK_SIZE));
+            for (Object[] row : update(chunk, vendorUserId)) {
+                updated.add((Long) row[0]);
+                if (row[1] != null) {
+                    categoryIds.add((Long) row[1]);
+                }
+                vendorIds.add((Long) row[2]);
+            }
+        }
+
+        List<Long> repriced = new ArrayList<>();
+        List<Long> restocked = new ArrayList<>();
+        for (Long id : updated) {
+            ProductBulkUpdateRequest.Item item = items.get(id);
+            if (item.getPrice() != null) {
+                repriced.add(id);
+            }
+            if (item.getStockQuantity() != null) {
+                restocked.add(id);
+            }
+        }
+
+        // Snapshots only carry price (stock is overlaid live), so only repriced ones are evicted
+        afterCommit(() -> twoLevelCacheManager.evictAll("products", repriced));
+        productStockService.invalidate(restocked);
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, updated,
+                    categoryIds, vendorIds));
+        }
+
+        ProductBulkUpdateResponse response = new ProductBulkUpdateResponse();
+        response.setRequested(items.size());
+        response.setUpdated(updated.size());
+        items.keySet().stream().filter(id -> !updated.contains(id)).forEach(response.getSkippedProductIds()::add);
+        return response;
+    }
+
+    // One statement per chunk, returns [id, categoryId, vendorId] of the updated rows
+    private List<Object[]> update(List<ProductBulkUpdateRequest.Item> chunk, Long vendorUserId) {
+        int size = chunk.size();
+        Long[] ids = new Long[size];
+        BigDecimal[] prices = new BigDecimal[size];
+        Integer[] stock = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = chunk.get(i).getProductId();
+            prices[i] = chunk.get(i).getPrice();
+            stock[i] = chunk.get(i).getStockQuantity();
+        }
+
+        return jdbcTemplate.execute((ConnectionCallback<List<Object[]>>) connection -> {
+            Array[] arrays = {
+                    connection.createArrayOf("bigint", ids),
+                    connection.createArrayOf("numeric", prices),
+                    connection.createArrayOf("int4", stock) };
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_CHUNK)) {
+                for (int i = 0; i < arrays.length; i++) {
+                    statement.setArray(i + 1, arrays[i]);
+                }
+                statement.setLong(4, vendorUserId);
+                List<Object[]> rows = new ArrayList<>(size);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        long categoryId = rs.getLong(2);
+                        rows.add(new Object[] { rs.getLong(1), rs.wasNull() ? null : categoryId, rs.getLong(3) });
+                    }
+                }
+                return rows;
+            } finally {
+                for (Array array : arrays) {
+                    array.free();
+                }
+            }
+        });
+    }
+
+    // Caches only follow committed changes
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.diddycart.modules.products.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// product_cards is written only by the trigger from migration 005. With ddl-auto: update
+// Hibernate creates the table on a database that skipped the migration, and the card
+// listings would then be silently empty; refuse to start instead.
+@Component
+public class ProductCardReadModelCheck {
+
+    private static final String TRIGGER = "trg_products_refresh_card";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void requireTrigger() {
+        Integer triggers = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_trigger " +
+                "WHERE tgname = ? AND tgrelid = to_regclass('products') AND NOT tgisinternal",
+                Integer.class, TRIGGER);
+        if (triggers == null || triggers == 0) {
+            throw new IllegalStateException("Trigger " + TRIGGER + " on products is missing: apply "
+                    + "database/migrations/005_product_cards.sql before starting the application");
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.diddycart.modules.products.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Locale;
+
+// Full (or incremental) catalog export for partners and the search indexer.
+//
+// One forward-only query streams every product with its category, vendor and image
+// URLs (no entity mapping, no per-row lookups). Inside a read-only transaction the
+// Postgres driver honours the fetch size and keeps only FETCH_SIZE rows in memory;
+// each row is written to the response as soon as it is read, so memory stays flat
+// whatever the catalog size. CSV columns match the bulk import fields.
+@Service
+public class ProductExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductExportService.class);
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String EXPORT_QUERY = "SELECT p.id, p.name, p.description, p.price, p.stock_quantity, " +
+            "p.category_id, c.type, p.vendor_id, v.store_name, p.added_at, p.updated_at, " +
+            "(SELECT array_agg(pi.image_url ORDER BY pi.id) FROM product_image pi WHERE pi.product_id = p.id) " +
+            "FROM products p " +
+            "JOIN vendors v ON v.id = p.vendor_id " +
+            "LEFT JOIN category c ON c.id = p.category_id " +
+            "WHERE p.updated_at >= ? " +
+            "ORDER BY p.id";
+
+    private static final String CSV_HEADER = "id,name,description,price,stockQuantity,categoryId,category,"
+            + "vendorId,vendorStoreName,imageUrls,addedAt,updatedAt\n";
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Response body that streams the catalog (products modified at or after modifiedSince, if given)
+    public StreamingResponseBody export(Format format, Instant modifiedSince) {
+        Timestamp since = Timestamp.from(modifiedSince != null ? modifiedSince : Instant.EPOCH);
+        return out -> {
+            long start = System.currentTimeMillis();
+            OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+            RowWriter writer = format == Format.CSV ? new CsvWriter(buffered) : new NdjsonWriter(buffered);
+            long[] rows = { 0 };
+
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            try {
+                readOnly.executeWithoutResult(status -> {
+                    JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+                    streaming.setFetchSize(FETCH_SIZE);
+                    streaming.query(EXPORT_QUERY, (RowCallbackHandler) rs -> {
+                        try {
+                            writer.write(rs);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e); // client went away, stop reading
+                        }
+                        rows[0]++;
+                    }, since);
+                });
+                writer.finish();
+            } catch (UncheckedIOException e) {
+                log.warn("Catalog export aborted after {} rows: {}", rows[0], e.getCause().getMessage());
+                throw e.getCause();
+            } finally {
+                meterRegistry.counter("diddycart.products.export.rows", "format", format.name().toLowerCase(Locale.ROOT))
+                        .increment(rows[0]);
+                log.info("Catalog export | Format: {} | Since: {} | Rows: {} | Took: {}ms", format,
+                        modifiedSince, rows[0], System.currentTimeMillis() - start);
+            }
+        };
+    }
+
+    // Writes one product row to the response
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    // {"id":1,"name":"...","price":499.00,...,"imageUrls":[...]} per line
+    private static final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator json;
+        private final OutputStream out;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            this.out = out;
+            this.json = JSON.createGenerator(out, JsonEncoding.UTF8);
+            this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong(1));
+            json.writeStringField("name", rs.getString(2));
+            json.writeStringField("description", rs.getString(3));
+            BigDecimal price = rs.getBigDecimal(4);
+            json.writeFieldName("price");
+            json.writeNumber(price);
+            json.writeNumberField("stockQuantity", rs.getInt(5));
+            writeNullableLong("categoryId", rs.getLong(6), rs.wasNull());
+            json.writeStringField("category", rs.getString(7));
+            json.writeNumberField("vendorId", rs.getLong(8));
+            json.writeStringField("vendorStoreName", rs.getString(9));
+            json.writeStringField("addedAt", toIso(rs.getTimestamp(10)));
+            json.writeStringField("updatedAt", toIso(rs.getTimestamp(11)));
+            json.writeArrayFieldStart("imageUrls");
+            for (String url : imageUrls(rs.getArray(12))) {
+                json.writeString(url);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            json.flush();
+            out.flush();
+        }
+
+        private void writeNullableLong(String field, long value, boolean isNull) throws IOException {
+            if (isNull) {
+                json.writeNullField(field);
+            } else {
+                json.writeNumberField(field, value);
+            }
+        }
+    }
+
+    // RFC 4180 CSV with a header row, image URLs separated by spaces
+    private static final class CsvWriter implements RowWriter {
+        private final Writer out;
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            this.out.write(CSV_HEADER);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            long categoryId = rs.getLong(6);
+            String category = rs.wasNull() ? "" : String.valueOf(categoryId);
+            out.write(rs.getLong(1) + ",");
+            out.write(quote(rs.getString(2)) + ",");
+            out.write(quote(rs.getString(3)) + ",");
+            out.write(rs.getBigDecimal(4).toPlainString() + ",");
+            out.write(rs.getInt(5) + ",");
+            out.write(category + ",");
+            out.write(quote(rs.getString(7)) + ",");
+            out.write(rs.getLong(8) + ",");
+            out.write(quote(rs.getString(9)) + ",");
+            out.write(quote(String.join(" ", imageUrls(rs.getArray(12)))) + ",");
+            out.write(quote(toIso(rs.getTimestamp(10))) + ",");
+            out.write(quote(toIso(rs.getTimestamp(11))) + "\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+
+        private static String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+
+    private static String[] imageUrls(Array array) throws SQLException {
+        if (array == null) {
+            return new String[0];
+        }
+        try {
+            return (String[]) array.getArray();
+        } finally {
+            array.free();
+        }
+    }
+
+    private static String toIso(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant().toString();
+    }
+}
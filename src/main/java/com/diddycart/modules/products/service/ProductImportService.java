@@ -0,0 +1,547 @@
+package com.diddycart.modules.products.service;
+
+import com.diddycart.common.cache.ExistenceFilter;
+import com.diddycart.modules.identity.models.Vendor;
+import com.diddycart.modules.identity.repository.VendorRepository;
+import com.diddycart.modules.products.dto.ProductImportResponse;
+import com.diddycart.modules.products.dto.ProductImportResponse.RowError;
+import com.diddycart.modules.products.dto.ProductRequest;
+import com.diddycart.modules.products.event.ProductChangedEvent;
+import com.diddycart.modules.products.models.Category;
+import com.diddycart.modules.products.repository.CategoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Bulk product import for vendors (CSV or NDJSON request body).
+//
+// The upload is read record by record and never held in memory (a record longer than
+// MAX_RECORD_CHARS, e.g. after an unterminated quote, stops the import at that line): each
+// row is validated as it arrives (same rules as ProductRequest), good rows are buffered up to BATCH_SIZE
+// and written with one multi-row INSERT ... SELECT FROM unnest(...) per batch (IDENTITY
+// keys rule out Hibernate batching). Each batch commits on its own, so a failed batch
+// only rejects its own rows. Caches and indexes are updated through one
+// ProductChangedEvent per batch.
+//
+// Fields (CSV header / JSON keys): name, description, price, stockQuantity, and either
+// categoryId or category (category type, case-insensitive).
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ROWS = 100_000;
+    private static final int MAX_REPORTED_ERRORS = 1_000;
+    private static final int MAX_RECORD_CHARS = 64 * 1024;
+
+    private static final String INSERT_BATCH = "INSERT INTO products " +
+            "(vendor_id, category_id, name, description, price, stock_quantity, added_at) " +
+            "SELECT ?, t.category_id, t.name, t.description, t.price, t.stock_quantity, NOW() " +
+            "FROM unnest(?::bigint[], ?::text[], ?::text[], ?::numeric[], ?::int[]) " +
+            "AS t(category_id, name, description, price, stock_quantity) " +
+            "RETURNING id";
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ExistenceFilter existenceFilter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Import products for the calling vendor, returns counts and the rejected rows
+    public ProductImportResponse importProducts(InputStream body, Format format, Long vendorUserId)
+            throws IOException {
+        Vendor vendor = vendorRepository.findByUserId(vendorUserId)
+                .orElseThrow(() -> new RuntimeException("Vendor profile not found"));
+        CategoryLookup categories = new CategoryLookup(categoryRepository.findAll());
+
+        long start = System.nanoTime();
+        ProductImportResponse report = new ProductImportResponse();
+        List<PendingRow> batch = new ArrayList<>(BATCH_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            RowSource rows = format == Format.CSV ? new CsvRows(reader) : new NdjsonRows(reader);
+            Map<String, String> fields;
+            while ((fields = next(rows, report)) != null) {
+                if (report.getTotalRows() == MAX_ROWS) {
+                    reject(report, rows.line(),
+                            "row limit of " + MAX_ROWS + " reached, the rest of the upload was skipped");
+                    break;
+                }
+                report.setTotalRows(report.getTotalRows() + 1);
+
+                long line = rows.line();
+                String error = rows.error();
+                if (error == null) {
+                    PendingRow row = new PendingRow(line);
+                    error = toRequest(fields, categories, row);
+                    if (error == null) {
+                        batch.add(row);
+                    }
+                }
+                if (error != null) {
+                    reject(report, line, error);
+                }
+
+                if (batch.size() == BATCH_SIZE) {
+                    flush(batch, vendor, report);
+                }
+            }
+        } finally {
+            // Rows read before an I/O error are still written
+            flush(batch, vendor, report);
+            finish(report, start, vendor);
+        }
+        return report;
+    }
+
+    // Next record, or null at the end of the input or once a record is over the length limit
+    private Map<String, String> next(RowSource rows, ProductImportResponse report) throws IOException {
+        try {
+            return rows.next();
+        } catch (RecordTooLongException e) {
+            report.setTotalRows(report.getTotalRows() + 1);
+            reject(report, e.line, "record longer than " + MAX_RECORD_CHARS
+                    + " characters (unterminated quote?), the rest of the upload was skipped");
+            return null;
+        }
+    }
+
+    // Map raw fields to a ProductRequest and validate it, returns the error or null
+    private String toRequest(Map<String, String> fields, CategoryLookup categories, PendingRow row) {
+        ProductRequest req = new ProductRequest();
+        req.setName(trimToNull(fields.get("name")));
+        req.setDescription(trimToNull(fields.get("description")));
+
+        try {
+            String price = trimToNull(fields.get("price"));
+            req.setPrice(price != null ? new BigDecimal(price) : null);
+        } catch (NumberFormatException e) {
+            return "price: not a number";
+        }
+        try {
+            String stock = trimToNull(fields.get("stockQuantity"));
+            req.setStockQuantity(stock != null ? Integer.valueOf(stock) : null);
+        } catch (NumberFormatException e) {
+            return "stockQuantity: not a whole number";
+        }
+
+        String categoryError = categories.resolve(trimToNull(fields.get("categoryId")),
+                trimToNull(fields.get("category")), req);
+        if (categoryError != null) {
+            return categoryError;
+        }
+
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(req);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (req.getName().length() > 255) {
+            return "name: must be at most 255 characters";
+        }
+        row.request = req;
+        return null;
+    }
+
+    // Write one batch in its own transaction and announce the new products
+    private void flush(List<PendingRow> batch, Vendor vendor, ProductImportResponse report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            List<Long> ids = tx.execute(status -> insert(batch, vendor.getId()));
+            report.setImported(report.getImported() + ids.size());
+
+            // Committed: drop negative entries of IDs probed before the import
+            ids.forEach(id -> existenceFilter.recordCreated(ExistenceFilter.Entity.PRODUCTS, id));
+            Set<Long> categoryIds = new HashSet<>();
+            batch.forEach(row -> categoryIds.add(row.request.getCategoryId()));
+            // Outside a transaction, so listeners run right away
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,
+                    new LinkedHashSet<>(ids), categoryIds, Set.of(vendor.getId())));
+        } catch (RuntimeException e) {
+            log.warn("Product import batch failed | Vendor: {} | Rows: {} | {}", vendor.getId(), batch.size(),
+                    e.getMessage());
+            for (PendingRow row : batch) {
+                reject(report, row.line, "insert failed: " + e.getMessage());
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    // One round trip: the batch goes up as column arrays and comes back as new IDs
+    private List<Long> insert(List<PendingRow> batch, Long vendorId) {
+        int size = batch.size();
+        Long[] categoryIds = new Long[size];
+        String[] names = new String[size];
+        String[] descriptions = new String[size];
+        BigDecimal[] prices = new BigDecimal[size];
+        Integer[] stock = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ProductRequest req = batch.get(i).request;
+            categoryIds[i] = req.getCategoryId();
+            names[i] = req.getName();
+            descriptions[i] = req.getDescription();
+            prices[i] = req.getPrice();
+            stock[i] = req.getStockQuantity();
+        }
+
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            Array[] arrays = {
+                    connection.createArrayOf("bigint", categoryIds),
+                    connection.createArrayOf("text", names),
+                    connection.createArrayOf("text", descriptions),
+                    connection.createArrayOf("numeric", prices),
+                    connection.createArrayOf("int4", stock) };
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_BATCH)) {
+                statement.setLong(1, vendorId);
+                for (int i = 0; i < arrays.length; i++) {
+                    statement.setArray(i + 2, arrays[i]);
+                }
+                List<Long> ids = new ArrayList<>(size);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                }
+                return ids;
+            } finally {
+                for (Array array : arrays) {
+                    array.free();
+                }
+            }
+        });
+    }
+
+    private void reject(ProductImportResponse report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new RowError(line, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    private void finish(ProductImportResponse report, long start, Vendor vendor) {
+        long nanos = System.nanoTime() - start;
+        report.setDurationMs(TimeUnit.NANOSECONDS.toMillis(nanos));
+        report.setRowsPerSecond(nanos > 0 ? report.getTotalRows() * 1_000_000_000.0 / nanos : 0);
+
+        meterRegistry.timer("diddycart.products.import.duration").record(nanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("diddycart.products.import.rows", "result", "imported").increment(report.getImported());
+        meterRegistry.counter("diddycart.products.import.rows", "result", "failed").increment(report.getFailed());
+        log.info("Product import finished | Vendor: {} | Rows: {} | Imported: {} | Failed: {} | Took: {}ms | {} rows/s",
+                vendor.getId(), report.getTotalRows(), report.getImported(), report.getFailed(),
+                report.getDurationMs(), Math.round(report.getRowsPerSecond()));
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // A validated row waiting for its batch
+    private static final class PendingRow {
+        final long line;
+        ProductRequest request;
+
+        PendingRow(long line) {
+            this.line = line;
+        }
+    }
+
+    // Categories by ID and by type, loaded once per import
+    private static final class CategoryLookup {
+        final Set<Long> ids = new HashSet<>();
+        final Map<String, Long> idByType = new HashMap<>();
+
+        CategoryLookup(List<Category> categories) {
+            for (Category category : categories) {
+                ids.add(category.getId());
+                idByType.put(category.getType().toLowerCase(Locale.ROOT), category.getId());
+            }
+        }
+
+        String resolve(String categoryId, String categoryType, ProductRequest req) {
+            if (categoryId != null) {
+                try {
+                    Long id = Long.valueOf(categoryId);
+                    if (!ids.contains(id)) {
+                        return "categoryId: category " + id + " not found";
+                    }
+                    req.setCategoryId(id);
+                    return null;
+                } catch (NumberFormatException e) {
+                    return "categoryId: not a number";
+                }
+            }
+            if (categoryType != null) {
+                Long id = idByType.get(categoryType.toLowerCase(Locale.ROOT));
+                if (id == null) {
+                    return "category: '" + categoryType + "' not found";
+                }
+                req.setCategoryId(id);
+            }
+            return null; // missing category is reported by validation
+        }
+    }
+
+    // A record over MAX_RECORD_CHARS; the parser cannot resync after it
+    private static final class RecordTooLongException extends IOException {
+        final long line;
+
+        RecordTooLongException(long line) {
+            super("Record on line " + line + " is longer than " + MAX_RECORD_CHARS + " characters");
+            this.line = line;
+        }
+    }
+
+    // Upload records as field maps; next() returns null at the end of the input
+    // and throws RecordTooLongException for a record over the length limit
+    private interface RowSource {
+        Map<String, String> next() throws IOException;
+
+        // Line the last record started on
+        long line();
+
+        // Parse error of the last record (its fields are then empty), or null
+        String error();
+    }
+
+    // NDJSON: one JSON object per line, blank lines are skipped
+    private static final class NdjsonRows implements RowSource {
+        private final BufferedReader reader;
+        private long lineNumber = 0;
+        private long recordLine;
+        private String error;
+
+        NdjsonRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String text;
+            do {
+                text = readLine();
+                lineNumber++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+
+            recordLine = lineNumber;
+            error = null;
+            Map<String, String> fields = new HashMap<>();
+            try {
+                JsonNode node = JSON.readTree(text);
+                if (!node.isObject()) {
+                    error = "not a JSON object";
+                    return fields;
+                }
+                node.properties().forEach(field -> {
+                    if (!field.getValue().isNull()) {
+                        fields.put(field.getKey(), field.getValue().asText());
+                    }
+                });
+            } catch (JsonProcessingException e) {
+                error = "invalid JSON: " + e.getOriginalMessage();
+            }
+            return fields;
+        }
+
+        @Override
+        public long line() {
+            return recordLine;
+        }
+
+        @Override
+        public String error() {
+            return error;
+        }
+
+        // Like readLine(), but stops at MAX_RECORD_CHARS instead of buffering an endless line
+        private String readLine() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            StringBuilder text = new StringBuilder();
+            while (c != -1 && c != '\n') {
+                if (text.length() == MAX_RECORD_CHARS) {
+                    throw new RecordTooLongException(lineNumber + 1);
+                }
+                text.append((char) c);
+                c = reader.read();
+            }
+            int end = text.length();
+            return end > 0 && text.charAt(end - 1) == '\r' ? text.substring(0, end - 1) : text.toString();
+        }
+    }
+
+    // CSV (RFC 4180): header row first, quoted fields may hold commas, quotes ("") and newlines
+    private static final class CsvRows implements RowSource {
+        private final BufferedReader reader;
+        private List<String> header;
+        private long lineNumber = 1;
+        private long recordLine;
+        private String error;
+
+        CsvRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (header == null) {
+                List<String> names = readRecord();
+                if (names == null) {
+                    return null;
+                }
+                header = names.stream().map(String::trim).toList();
+            }
+
+            List<String> values;
+            do {
+                values = readRecord();
+            } while (values != null && values.size() == 1 && values.get(0).isBlank());
+            if (values == null) {
+                return null;
+            }
+
+            error = null;
+            Map<String, String> fields = new HashMap<>();
+            if (values.size() != header.size()) {
+                error = "expected " + header.size() + " columns, found " + values.size();
+                return fields;
+            }
+            for (int i = 0; i < header.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            return fields;
+        }
+
+        @Override
+        public long line() {
+            return recordLine;
+        }
+
+        @Override
+        public String error() {
+            return error;
+        }
+
+        // One record, or null at the end of the input
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+
+            recordLine = lineNumber;
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            int length = 0;
+            while (c != -1) {
+                if (++length > MAX_RECORD_CHARS) {
+                    throw new RecordTooLongException(recordLine);
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            value.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        if (c == '\n') {
+                            lineNumber++;
+                        }
+                        value.append((char) c);
+                    }
+                } else if (c == '"' && value.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else if (c == '\n') {
+                    lineNumber++;
+                    break;
+                } else if (c != '\r') {
+                    value.append((char) c);
+                }
+                c = reader.read();
+            }
+            values.add(value.toString());
+            return values;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.diddycart.modules.products.service;
+
+import com.diddycart.common.cache.CacheProperties;
+import com.diddycart.common.cache.RedisCircuitBreaker;
+import com.diddycart.modules.products.dto.CachedProductPage;
+import com.diddycart.modules.products.dto.ProductCardResponse;
+import com.diddycart.modules.products.dto.ProductResponse;
+import com.diddycart.modules.products.event.ProductChangedEvent;
+import com.diddycart.modules.products.models.Product;
+import com.diddycart.modules.products.models.ProductCard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Page-level cache for the catalog listing and search endpoints.
+// Each cached page is tagged in Redis with the categories and vendors of the products
+// on it, so a product change only evicts the pages that show that category or vendor.
+// Pages are also tagged with their scope (see SCOPES): creates and deletes shift every
+// listing, so they evict whole scopes. Pages that shift because a product was
+// updated elsewhere are not tracked; the short TTL of "product_pages" bounds that lag.
+// Tags are written after the page is stored, and an invalidation version read before
+// the load is re-checked afterwards, so a page loaded before a concurrent change and
+// stored after its invalidation is evicted instead of lingering untagged.
+@Service
+public class ProductPageCache {
+
+    public static final String CACHE_NAME = "product_pages";
+
+    private static final Logger log = LoggerFactory.getLogger(ProductPageCache.class);
+    private static final String TAG_PREFIX = "cache:tags:" + CACHE_NAME + ":";
+    private static final String VERSION_KEY = "cache:version:" + CACHE_NAME;
+
+    // Listing scopes: full products (all, search) and listing cards (cards, card-search)
+    private static final List<String> SCOPES = List.of("all", "search", "cards", "card-search");
+
+    // Deep or oversized pages are rare, load them directly instead of filling the cache
+    private static final int MAX_CACHED_PAGE = 20;
+    private static final int MAX_CACHED_SIZE = 100;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    // Get a page of full products from cache, loading and tagging it on a miss
+    public Page<ProductResponse> getProductPage(String scope, String query, Pageable pageable,
+            Supplier<Page<Product>> loader, Function<Product, ProductResponse> mapper) {
+        return getPage(scope, query, pageable, loader, mapper,
+                product -> product.getCategory() != null ? product.getCategory().getId() : null,
+                product -> product.getVendor().getId());
+    }
+
+    // Same for a page of listing cards
+    public Page<ProductCardResponse> getCardPage(String scope, String query, Pageable pageable,
+            Supplier<Page<ProductCard>> loader, Function<ProductCard, ProductCardResponse> mapper) {
+        return getPage(scope, query, pageable, loader, mapper, ProductCard::getCategoryId, ProductCard::getVendorId);
+    }
+
+    private <E, T> Page<T> getPage(String scope, String query, Pageable pageable, Supplier<Page<E>> loader,
+            Function<E, T> mapper, Function<E, Long> categoryOf, Function<E, Long> vendorOf) {
+        if (!SCOPES.contains(scope)) {
+            throw new IllegalArgumentException("Unknown listing scope: " + scope);
+        }
+        if (!isCacheable(pageable)) {
+            return loader.get().map(mapper);
+        }
+
+        String key = pageKey(scope, query, pageable);
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        Set<String> tags = new LinkedHashSet<>();
+        String[] versionBeforeLoad = new String[1];
+        CachedProductPage<T> cached = cache.get(key, () -> {
+            versionBeforeLoad[0] = version();
+            Page<E> page = loader.get();
+            tags.add(scopeTag(scope));
+            for (E row : page.getContent()) {
+                Long categoryId = categoryOf.apply(row);
+                if (categoryId != null) {
+                    tags.add(categoryTag(categoryId));
+                }
+                tags.add(vendorTag(vendorOf.apply(row)));
+            }
+            return new CachedProductPage<>(page.getContent().stream().map(mapper).toList(),
+                    page.getTotalElements());
+        });
+
+        // Loaded here (not a hit): tag now that the page is stored, then drop it if an
+        // invalidation ran since the load started (it could not have seen the new tags)
+        if (!tags.isEmpty()) {
+            tag(key, tags);
+            if (!Objects.equals(versionBeforeLoad[0], version())) {
+                cache.evict(key);
+            }
+        }
+        return new PageImpl<>(cached.getContent(), pageable, cached.getTotalElements());
+    }
+
+    // Evict the pages showing a changed product's category or vendor (after commit)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (event.getType() != ProductChangedEvent.Type.UPDATED) {
+            SCOPES.forEach(scope -> tags.add(scopeTag(scope)));
+        }
+        event.getCategoryIds().forEach(id -> tags.add(categoryTag(id)));
+        event.getVendorIds().forEach(id -> tags.add(vendorTag(id)));
+        if (tags.isEmpty()) {
+            return;
+        }
+
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (!circuitBreaker.allowRequest()) {
+            cache.clear(); // tags live in Redis, without them flush the lot
+            return;
+        }
+
+        try {
+            // Bump first: a load that started before this point re-checks it after tagging
+            redisTemplate.opsForValue().increment(VERSION_KEY);
+            for (String tag : tags) {
+                Set<String> keys = redisTemplate.opsForSet().members(TAG_PREFIX + tag);
+                redisTemplate.delete(TAG_PREFIX + tag);
+                if (keys != null) {
+                    keys.forEach(cache::evict);
+                }
+            }
+            circuitBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+            log.warn("Page tag invalidation failed, clearing {}: {}", CACHE_NAME, e.getMessage());
+            cache.clear();
+        }
+    }
+
+    // Record which tags a page carries (tag sets outlive the pages they point to)
+    private void tag(String key, Set<String> tags) {
+        if (tags.isEmpty() || !circuitBreaker.allowRequest()) {
+            return;
+        }
+
+        long ttlSeconds = cacheProperties.policyFor(CACHE_NAME).getTtl().toSeconds() * 2;
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (String tag : tags) {
+                    stringConnection.sAdd(TAG_PREFIX + tag, key);
+                    stringConnection.expire(TAG_PREFIX + tag, ttlSeconds);
+                }
+                return null;
+            });
+            circuitBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            // Untagged page just lives out its (short) TTL
+            circuitBreaker.recordFailure(e);
+            log.debug("Page tagging failed | Key: {} | {}", key, e.getMessage());
+        }
+    }
+
+    // Current invalidation version (null when Redis is unavailable)
+    private String version() {
+        if (!circuitBreaker.allowRequest()) {
+            return null;
+        }
+
+        try {
+            String version = redisTemplate.opsForValue().get(VERSION_KEY);
+            circuitBreaker.recordSuccess();
+            return version;
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+            log.debug("Page version read failed | {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isCacheable(Pageable pageable) {
+        return pageable.isPaged()
+                && pageable.getPageNumber() < MAX_CACHED_PAGE
+                && pageable.getPageSize() <= MAX_CACHED_SIZE;
+    }
+
+    // Normalized key: scope|query|page|size|sort (query trimmed, lower-cased, single-spaced)
+    private String pageKey(String scope, String query, Pageable pageable) {
+        String normalizedQuery = query == null ? ""
+                : query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return scope + "|" + normalizedQuery + "|" + pageable.getPageNumber() + "|" + pageable.getPageSize()
+                + "|" + sortKey(pageable.getSort());
+    }
+
+    private String sortKey(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "unsorted";
+        }
+        return sort.stream()
+                .map(order -> order.getProperty() + ":" + order.getDirection()
+                        + (order.isIgnoreCase() ? ":ic" : ""))
+                .collect(Collectors.joining(","));
+    }
+
+    private String scopeTag(String scope) {
+        return "scope:" + scope;
+    }
+
+    private String categoryTag(Long categoryId) {
+        return "category:" + categoryId;
+    }
+
+    private String vendorTag(Long vendorId) {
+        return "vendor:" + vendorId;
+    }
+}
@@ -4,23 +4,45 @@ import com.diddycart.modules.identity.models.Vendor;
 import com.diddycart.modules.identity.repository.VendorRepository;
 import com.diddycart.modules.products.models.Category;
 import com.diddycart.modules.products.models.Product;
+import com.diddycart.modules.products.models.ProductCard;
 import com.diddycart.modules.products.models.ProductImage;
+import com.diddycart.modules.products.dto.ProductCardResponse;
 import com.diddycart.modules.products.dto.ProductRequest;
 import com.diddycart.modules.products.dto.ProductResponse;
+import com.diddycart.modules.products.event.ProductChangedEvent;
 import com.diddycart.modules.products.repository.CategoryRepository;
+import com.diddycart.modules.products.repository.ProductCardRepository;
 import com.diddycart.modules.products.repository.ProductRepository;
+import com.diddycart.common.cache.ExistenceFilter;
+import com.diddycart.common.cache.TwoLevelCacheManager;
+import com.diddycart.common.pagination.CursorCodec;
+import com.diddycart.common.pagination.CursorPage;
 import com.diddycart.common.infrastructure.FileService;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,6 +51,9 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductCardRepository productCardRepository;
+
     @Autowired
     private CategoryRepository categoryRepository;
 
@@ -38,6 +63,33 @@ public class ProductService {
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private TwoLevelCacheManager twoLevelCacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductPageCache productPageCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ExistenceFilter existenceFilter;
+
+    @Autowired
+    private ProductStockService productStockService;
+
+    // Let the products cache recompute hot entries in the background before they expire
+    @PostConstruct
+    public void registerCacheRefresher() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        twoLevelCacheManager.registerRefresher("products",
+                key -> readOnly.execute(status -> loadProduct(Long.valueOf(key))));
+    }
+
     // ADMIN/VENDOR Add a new Product
     public ProductResponse addProduct(ProductRequest req, MultipartFile image, Long vendorUserId) throws IOException {
         // Get category by categoryId
@@ -75,29 +127,127 @@ public class ProductService {
 
         // Save product to ProductRepository
         Product savedProduct = productRepository.save(product);
+        existenceFilter.recordCreated(ExistenceFilter.Entity.PRODUCTS, savedProduct.getId());
+        publishChange(ProductChangedEvent.Type.CREATED, savedProduct, null);
 
         // Map Product to ProductResponse
         return mapToResponse(savedProduct);
     }
 
-    // Get all products by pageable (Paginated)
+    // Get all products by pageable (Paginated, page-cached)
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable).map(this::mapToResponse);
+        return productPageCache.getProductPage("all", null, pageable,
+                () -> productRepository.findAll(pageable), this::mapToResponse);
+    }
+
+    // Get products newest first by cursor (keyset pagination, no count query)
+    public CursorPage<ProductResponse> getProductsAfter(String cursor, Integer size) {
+        int limit = CursorCodec.clampSize(size);
+        List<Product> rows = cursor == null || cursor.isBlank()
+                ? productRepository.findByOrderByIdDesc(Limit.of(limit + 1))
+                : productRepository.findByIdLessThanOrderByIdDesc(CursorCodec.decodeId(cursor), Limit.of(limit + 1));
+        return CursorCodec.slice(rows, limit, this::mapToResponse, product -> CursorCodec.encodeId(product.getId()));
+    }
+
+    // Get listing cards by pageable (Paginated, page-cached, read from the product_cards read model;
+    // sort properties are ProductCard fields)
+    public Page<ProductCardResponse> getProductCards(Pageable pageable) {
+        return productPageCache.getCardPage("cards", null, pageable,
+                () -> productCardRepository.findAll(pageable), this::mapToCard);
+    }
+
+    // Get listing cards newest first by cursor (keyset pagination, no count query)
+    public CursorPage<ProductCardResponse> getProductCardsAfter(String cursor, Integer size) {
+        int limit = CursorCodec.clampSize(size);
+        List<ProductCard> rows = cursor == null || cursor.isBlank()
+                ? productCardRepository.findByOrderByIdDesc(Limit.of(limit + 1))
+                : productCardRepository.findByIdLessThanOrderByIdDesc(CursorCodec.decodeId(cursor),
+                        Limit.of(limit + 1));
+        return CursorCodec.slice(rows, limit, this::mapToCard, card -> CursorCodec.encodeId(card.getId()));
+    }
+
+    // Get several products by ID in the given order (one query, missing IDs are skipped)
+    public List<ProductResponse> getProductsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        productRepository.findByIdIn(ids).forEach(product -> byId.put(product.getId(), product));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToResponse)
+                .toList();
     }
 
     // Get Product by id checks cache first
-    @Cacheable(value = "products", key = "#id")
+    // sync = true: concurrent misses for a hot product share one load (see TwoLevelCache)
+    // IDs the existence filter rules out skip the cache and fail fast in loadProduct
+    @Cacheable(value = "products", key = "#id", sync = true,
+            condition = "@existenceFilter.mightExist('products', #id)")
     public ProductResponse getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        return loadProduct(id);
+    }
+
+    // Load Product from DB and map it (cache loader and background refresher)
+    private ProductResponse loadProduct(Long id) {
+        // Known-missing IDs never reach Postgres
+        if (!existenceFilter.mightExist(ExistenceFilter.Entity.PRODUCTS, id)
+                || existenceFilter.isKnownMissing(ExistenceFilter.Entity.PRODUCTS, id)) {
+            throw new RuntimeException("Product not found with id: " + id);
+        }
+
+        Product product = productRepository.findWithDetailsById(id).orElse(null);
+        if (product == null) {
+            existenceFilter.recordMissing(ExistenceFilter.Entity.PRODUCTS, id);
+            throw new RuntimeException("Product not found with id: " + id);
+        }
 
         // Map Product to ProductResponse
         return mapToResponse(product);
     }
 
-    // Search products by name by keyword (Paginated)
+    // Search products by keyword over name and description (Paginated, page-cached).
+    // Results are ordered by relevance, so any requested sort is ignored.
     public Page<ProductResponse> searchProducts(String keyword, Pageable pageable) {
-        return productRepository.findByNameContainingIgnoreCase(keyword, pageable).map(this::mapToResponse);
+        String query = toPrefixQuery(keyword);
+        if (query.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        String text = keyword.trim();
+        Pageable byRelevance = unsorted(pageable);
+        return productPageCache.getProductPage("search", keyword, byRelevance,
+                () -> productRepository.fullTextSearch(query, text, byRelevance), this::mapToResponse);
+    }
+
+    // Same search returning listing cards (matched and ranked on products, rows read from the cards)
+    public Page<ProductCardResponse> searchProductCards(String keyword, Pageable pageable) {
+        String query = toPrefixQuery(keyword);
+        if (query.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        String text = keyword.trim();
+        Pageable byRelevance = unsorted(pageable);
+        return productPageCache.getCardPage("card-search", keyword, byRelevance,
+                () -> productCardRepository.fullTextSearch(query, text, byRelevance), this::mapToCard);
+    }
+
+    // Relevance decides the order, a requested sort is dropped
+    private static Pageable unsorted(Pageable pageable) {
+        return pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : pageable;
+    }
+
+    // "Running  shoe!" -> "running:* & shoe:*" (letters/digits only, so safe for to_tsquery)
+    static String toPrefixQuery(String keyword) {
+        if (keyword == null) {
+            return "";
+        }
+        return Arrays.stream(keyword.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
     }
 
     // ADMIN/VENDOR Update Product and update cache
@@ -105,7 +255,7 @@ public class ProductService {
     public ProductResponse updateProduct(Long id, ProductRequest req, MultipartFile image, Long vendorUserId)
             throws IOException {
         // Get product by id
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
 
         // Verify ownership by vendorUserId
@@ -113,6 +263,9 @@ public class ProductService {
             throw new RuntimeException("You are not authorized to update this product");
         }
 
+        // Remember the old category so pages listing it are invalidated too
+        Long previousCategoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+
         // Update fields by req
         product.setName(req.getName());
         product.setDescription(req.getDescription());
@@ -156,6 +309,8 @@ public class ProductService {
 
         // Save product to ProductRepository
         Product updatedProduct = productRepository.save(product);
+        productStockService.invalidate(id);
+        publishChange(ProductChangedEvent.Type.UPDATED, updatedProduct, previousCategoryId);
 
         // Map Product to ProductResponse
         return mapToResponse(updatedProduct);
@@ -164,7 +319,7 @@ public class ProductService {
     // ADMIN/VENDOR Delete Product and remove from cache
     @CacheEvict(value = "products", key = "#id")
     public void deleteProduct(Long id, Long vendorUserId) throws IOException {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
 
         // Verify ownership
@@ -184,14 +339,27 @@ public class ProductService {
         }
 
         productRepository.delete(product);
+        existenceFilter.recordMissing(ExistenceFilter.Entity.PRODUCTS, id);
+        productStockService.invalidate(id);
+        publishChange(ProductChangedEvent.Type.DELETED, product, null);
     }
 
     // Restore stock when payment fails
     public void restoreStock(Long productId, Integer quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
-        product.setStockQuantity(product.getStockQuantity() + quantity);
-        productRepository.save(product);
+        productStockService.release(productId, quantity);
+    }
+
+    // Tell listeners (page cache etc.) which product, categories and vendor changed
+    private void publishChange(ProductChangedEvent.Type type, Product product, Long previousCategoryId) {
+        Set<Long> categoryIds = new HashSet<>();
+        if (product.getCategory() != null) {
+            categoryIds.add(product.getCategory().getId());
+        }
+        if (previousCategoryId != null) {
+            categoryIds.add(previousCategoryId);
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(type, Set.of(product.getId()), categoryIds,
+                Set.of(product.getVendor().getId())));
     }
 
     // Map Product to ProductResponse
@@ -215,4 +383,17 @@ public class ProductService {
         // Return ProductResponse
         return res;
     }
-}
\ No newline at end of file
+
+    // Map ProductCard to ProductCardResponse (flat row, no lazy associations)
+    private ProductCardResponse mapToCard(ProductCard card) {
+        ProductCardResponse res = new ProductCardResponse();
+        res.setId(card.getId());
+        res.setName(card.getName());
+        res.setPrice(card.getPrice());
+        res.setImageUrl(card.getImageUrl());
+        res.setCategoryName(card.getCategoryName());
+        res.setVendorStoreName(card.getStoreName());
+        res.setInStock(card.getInStock());
+        return res;
+    }
+}
@@ -0,0 +1,323 @@
+package com.diddycart.modules.products.service;
+
+import com.diddycart.common.cache.CacheProperties;
+import com.diddycart.common.cache.RedisCircuitBreaker;
+import com.diddycart.modules.products.dto.ProductCardResponse;
+import com.diddycart.modules.products.dto.ProductResponse;
+import com.diddycart.modules.products.event.ProductStockChangedEvent;
+import com.diddycart.modules.products.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Live stock, kept apart from the (long-lived) cached product snapshots.
+//
+// Postgres stays the source of truth and is changed with atomic conditional updates.
+// Redis holds a short-lived counter per product ("stock:product:<id>") that reads are
+// served from: hydrated from the DB on a miss, then moved by the same deltas as the DB
+// once the transaction commits (only if the counter is still there, so an expired
+// counter is simply re-read). Reads fall back to the DB when Redis is unavailable.
+// A delta that finds no counter bumps the product's generation ("stock:gen:<id>")
+// instead; a hydrate only writes if the generation it saw before its DB read is
+// unchanged, so a value read before a concurrent commit is never seeded afterwards.
+@Service
+public class ProductStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductStockService.class);
+    private static final String PREFIX = "stock:product:";
+    private static final String GEN_PREFIX = "stock:gen:";
+
+    // Apply a delta only to a live counter, never create one from a delta; without a
+    // counter, bump the generation so in-flight hydrates (read before the delta) back off
+    // KEYS: counter, generation | ARGV: delta, generation ttl (ms)
+    private static final DefaultRedisScript<Long> APPLY_DELTA = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then return redis.call('incrby', KEYS[1], ARGV[1]) end "
+                    + "redis.call('incr', KEYS[2]) redis.call('pexpire', KEYS[2], ARGV[2]) return nil",
+            Long.class);
+
+    // Seed a counter unless one is live or a delta ran since the caller's DB read
+    // KEYS: counter, generation | ARGV: stock, generation seen before the read ('' = none), ttl (ms)
+    private static final String HYDRATE_SCRIPT =
+            "if (redis.call('get', KEYS[2]) or '') ~= ARGV[2] then return 0 end "
+                    + "if redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[3], 'NX') then return 1 end return 0";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Current stock of one product
+    public Integer getAvailable(Long productId) {
+        Counters cached = readCounters(List.of(productId));
+        if (cached != null && cached.values().get(0) != null) {
+            return Integer.valueOf(cached.values().get(0));
+        }
+
+        Integer stock = productRepository.findStockQuantityById(productId).orElse(null);
+        if (stock != null && cached != null) {
+            hydrate(Map.of(productId, stock), cached.generationsOf(List.of(productId)));
+        }
+        return stock;
+    }
+
+    // Current stock of several products (one MGET, one DB query for the misses)
+    public Map<Long, Integer> getAvailable(Set<Long> productIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        List<Long> ids = new ArrayList<>(productIds);
+        Counters cached = readCounters(ids);
+
+        Set<Long> missing = new LinkedHashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String value = cached != null ? cached.values().get(i) : null;
+            if (value != null) {
+                stock.put(ids.get(i), Integer.valueOf(value));
+            } else {
+                missing.add(ids.get(i));
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Long, Integer> loaded = new HashMap<>();
+            for (Object[] row : productRepository.findStockQuantities(missing)) {
+                loaded.put((Long) row[0], (Integer) row[1]);
+            }
+            if (cached != null) {
+                hydrate(loaded, cached.generationsOf(ids));
+            }
+            stock.putAll(loaded);
+        }
+        return stock;
+    }
+
+    // Take stock for an order line, throws if there is not enough left
+    public void reserve(Long productId, int quantity, String productName) {
+        if (productRepository.decrementStock(productId, quantity) == 0) {
+            throw new RuntimeException("Out of stock: " + productName);
+        }
+        afterCommit(() -> applyDelta(productId, -quantity));
+    }
+
+    // Give stock back (cancelled or failed orders)
+    public void release(Long productId, int quantity) {
+        if (productRepository.incrementStock(productId, quantity) == 0) {
+            throw new RuntimeException("Product not found with id: " + productId);
+        }
+        afterCommit(() -> applyDelta(productId, quantity));
+    }
+
+    // Stock was overwritten (product update) or the product is gone, re-read on next access
+    public void invalidate(Long productId) {
+        afterCommit(() -> {
+            if (!circuitBreaker.allowRequest()) {
+                return; // counter expires on its own
+            }
+            try {
+                redisTemplate.delete(PREFIX + productId);
+                circuitBreaker.recordSuccess();
+            } catch (RuntimeException e) {
+                circuitBreaker.recordFailure(e);
+            }
+        });
+    }
+
+    // Same for many products (bulk updates), one DEL after commit
+    public void invalidate(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = productIds.stream().map(id -> PREFIX + id).toList();
+        afterCommit(() -> {
+            if (!circuitBreaker.allowRequest()) {
+                return; // counters expire on their own
+            }
+            try {
+                redisTemplate.delete(keys);
+                circuitBreaker.recordSuccess();
+            } catch (RuntimeException e) {
+                circuitBreaker.recordFailure(e);
+            }
+        });
+    }
+
+    // Copy of a (cached) product snapshot with live stock, the cached instance is shared
+    public ProductResponse withLiveStock(ProductResponse snapshot) {
+        Integer stock = getAvailable(snapshot.getId());
+        return copyWithStock(snapshot, stock != null ? stock : snapshot.getStockQuantity());
+    }
+
+    // Same for a listing page, with one batched stock read
+    public Page<ProductResponse> withLiveStock(Page<ProductResponse> page) {
+        return new PageImpl<>(withLiveStock(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    // Same for a list of products, with one batched stock read
+    public List<ProductResponse> withLiveStock(List<ProductResponse> products) {
+        Set<Long> ids = new LinkedHashSet<>();
+        products.forEach(product -> ids.add(product.getId()));
+        if (ids.isEmpty()) {
+            return products;
+        }
+
+        Map<Long, Integer> stock = getAvailable(ids);
+        return products.stream()
+                .map(product -> copyWithStock(product,
+                        stock.getOrDefault(product.getId(), product.getStockQuantity())))
+                .toList();
+    }
+
+    // Listing cards only carry an in-stock flag: same batched read, flag from live stock
+    public Page<ProductCardResponse> withLiveAvailability(Page<ProductCardResponse> page) {
+        return new PageImpl<>(withLiveAvailability(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    // Same for a list of cards (cached instances are shared, so copies are returned)
+    public List<ProductCardResponse> withLiveAvailability(List<ProductCardResponse> cards) {
+        Set<Long> ids = new LinkedHashSet<>();
+        cards.forEach(card -> ids.add(card.getId()));
+        if (ids.isEmpty()) {
+            return cards;
+        }
+
+        Map<Long, Integer> stock = getAvailable(ids);
+        return cards.stream().map(card -> {
+            Integer available = stock.get(card.getId());
+            ProductCardResponse res = new ProductCardResponse();
+            res.setId(card.getId());
+            res.setName(card.getName());
+            res.setPrice(card.getPrice());
+            res.setImageUrl(card.getImageUrl());
+            res.setCategoryName(card.getCategoryName());
+            res.setVendorStoreName(card.getVendorStoreName());
+            res.setInStock(available != null ? available > 0 : card.getInStock());
+            return res;
+        }).toList();
+    }
+
+    private ProductResponse copyWithStock(ProductResponse snapshot, Integer stock) {
+        ProductResponse res = new ProductResponse();
+        res.setId(snapshot.getId());
+        res.setName(snapshot.getName());
+        res.setDescription(snapshot.getDescription());
+        res.setPrice(snapshot.getPrice());
+        res.setStockQuantity(stock);
+        res.setCategoryName(snapshot.getCategoryName());
+        res.setVendorStoreName(snapshot.getVendorStoreName());
+        res.setImageUrls(snapshot.getImageUrls());
+        return res;
+    }
+
+    // Counters and their generations in one MGET (null when Redis is unavailable)
+    private Counters readCounters(List<Long> productIds) {
+        if (!circuitBreaker.allowRequest()) {
+            return null;
+        }
+        List<String> keys = new ArrayList<>();
+        productIds.forEach(id -> keys.add(PREFIX + id));
+        productIds.forEach(id -> keys.add(GEN_PREFIX + id));
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            circuitBreaker.recordSuccess();
+            if (values == null) {
+                return null;
+            }
+            return new Counters(values.subList(0, productIds.size()),
+                    values.subList(productIds.size(), values.size()));
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+            return null;
+        }
+    }
+
+    // Seed counters from DB values, never overwriting a counter that is already live and
+    // skipping products whose generation moved since it was read (a delta raced the DB read)
+    private void hydrate(Map<Long, Integer> stock, Map<Long, String> generations) {
+        if (stock.isEmpty() || !circuitBreaker.allowRequest()) {
+            return;
+        }
+        String ttlMillis = String.valueOf(cacheProperties.getStock().getTtl().toMillis());
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                stock.forEach((id, quantity) -> stringConnection.eval(HYDRATE_SCRIPT, ReturnType.INTEGER, 2,
+                        PREFIX + id, GEN_PREFIX + id, String.valueOf(quantity),
+                        generations.getOrDefault(id, ""), ttlMillis));
+                return null;
+            });
+            circuitBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+        }
+    }
+
+    private void applyDelta(Long productId, int delta) {
+        eventPublisher.publishEvent(new ProductStockChangedEvent(productId, delta));
+        if (!circuitBreaker.allowRequest()) {
+            return; // counters written before the outage expire within their TTL
+        }
+        try {
+            // Generations outlive any counter (and so any hydrate) they fence
+            long generationTtl = cacheProperties.getStock().getTtl().toMillis() * 2;
+            redisTemplate.execute(APPLY_DELTA, List.of(PREFIX + productId, GEN_PREFIX + productId),
+                    String.valueOf(delta), String.valueOf(generationTtl));
+            circuitBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+            log.warn("Stock counter update failed | Product: {} | {}", productId, e.getMessage());
+        }
+    }
+
+    // Counter values and generations, both in request order (null = absent)
+    private record Counters(List<String> values, List<String> generations) {
+
+        Map<Long, String> generationsOf(List<Long> productIds) {
+            Map<Long, String> byId = new HashMap<>();
+            for (int i = 0; i < productIds.size(); i++) {
+                byId.put(productIds.get(i), generations.get(i) != null ? generations.get(i) : "");
+            }
+            return byId;
+        }
+    }
+
+    // Redis only follows committed DB changes (runs immediately outside a transaction)
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
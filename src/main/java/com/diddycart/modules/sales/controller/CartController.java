@@ -1,6 +1,7 @@
 package com.diddycart.modules.sales.controller;
 
 import com.diddycart.modules.sales.dto.AddToCartRequest;
+import com.diddycart.modules.sales.dto.CartBatchRequest;
 import com.diddycart.modules.sales.dto.CartResponse;
 import com.diddycart.modules.sales.service.CartService;
 import com.diddycart.common.security.JwtUtil;
@@ -36,17 +37,40 @@ public class CartController {
         return ResponseEntity.ok(cartService.addToCart(userId, request.getProductId(), request.getQuantity()));
     }
 
-    // Remove Item from Cart
+    // Apply several cart changes in one request (all or nothing)
+    @PostMapping("/batch")
+    public ResponseEntity<CartResponse> applyBatch(
+            @RequestHeader("Authorization") String token,
+            @Valid @RequestBody CartBatchRequest request) {
+
+        Long userId = jwtUtil.extractUserId(token.substring(7));
+        return ResponseEntity.ok(cartService.applyBatch(userId, request));
+    }
+
+    // Remove Item from Cart by line ID
     @DeleteMapping("/remove/{cartItemId}")
-    public ResponseEntity<CartResponse> removeFromCart(
+    public ResponseEntity<CartResponse> removeCartLine(
             @PathVariable Long cartItemId,
             @RequestHeader("Authorization") String token) {
 
         // Extract userId from token
         Long userId = jwtUtil.extractUserId(token.substring(7));
 
-        // Remove item from cart by userId and cartItemId
-        return ResponseEntity.ok(cartService.removeFromCart(userId, cartItemId));
+        // Remove the line if it belongs to this user's cart
+        return ResponseEntity.ok(cartService.removeCartLine(userId, cartItemId));
+    }
+
+    // Remove Item from Cart by product (also works for lines not saved yet)
+    @DeleteMapping("/remove/product/{productId}")
+    public ResponseEntity<CartResponse> removeFromCart(
+            @PathVariable Long productId,
+            @RequestHeader("Authorization") String token) {
+
+        // Extract userId from token
+        Long userId = jwtUtil.extractUserId(token.substring(7));
+
+        // Remove item from cart by userId and productId
+        return ResponseEntity.ok(cartService.removeFromCart(userId, productId));
     }
 
     // Clear Cart
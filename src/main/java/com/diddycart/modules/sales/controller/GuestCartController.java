@@ -0,0 +1,70 @@
+package com.diddycart.modules.sales.controller;
+
+import com.diddycart.modules.sales.dto.AddToCartRequest;
+import com.diddycart.modules.sales.dto.CartBatchRequest;
+import com.diddycart.modules.sales.dto.CartResponse;
+import com.diddycart.modules.sales.service.CartService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Carts for shoppers who are not signed in, identified by an opaque token in the
+// X-Guest-Cart header. The first change issues a token (returned in the same header);
+// sending it with login/register moves the cart into the user's cart.
+@RestController
+@RequestMapping("/api/cart/guest")
+public class GuestCartController {
+
+    public static final String TOKEN_HEADER = "X-Guest-Cart";
+
+    @Autowired
+    private CartService cartService;
+
+    // Get Guest Cart (empty without a token)
+    @GetMapping
+    public ResponseEntity<CartResponse> getGuestCart(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        return ResponseEntity.ok(cartService.getGuestCart(token));
+    }
+
+    // Add Item to Guest Cart
+    @PostMapping("/add")
+    public ResponseEntity<CartResponse> addToGuestCart(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @Valid @RequestBody AddToCartRequest request) {
+
+        String cartToken = token != null ? token : cartService.newGuestToken();
+        return withToken(cartToken,
+                cartService.addToGuestCart(cartToken, request.getProductId(), request.getQuantity()));
+    }
+
+    // Apply several changes to Guest Cart (all or nothing)
+    @PostMapping("/batch")
+    public ResponseEntity<CartResponse> applyGuestBatch(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @Valid @RequestBody CartBatchRequest request) {
+
+        String cartToken = token != null ? token : cartService.newGuestToken();
+        return withToken(cartToken, cartService.applyGuestBatch(cartToken, request));
+    }
+
+    // Remove Item from Guest Cart
+    @DeleteMapping("/remove/{productId}")
+    public ResponseEntity<CartResponse> removeFromGuestCart(
+            @PathVariable Long productId,
+            @RequestHeader(TOKEN_HEADER) String token) {
+        return withToken(token, cartService.removeFromGuestCart(token, productId));
+    }
+
+    // Clear Guest Cart
+    @DeleteMapping("/clear")
+    public ResponseEntity<String> clearGuestCart(@RequestHeader(TOKEN_HEADER) String token) {
+        cartService.clearGuestCart(token);
+        return ResponseEntity.ok("Cart cleared");
+    }
+
+    private ResponseEntity<CartResponse> withToken(String token, CartResponse cart) {
+        return ResponseEntity.ok().header(TOKEN_HEADER, token).body(cart);
+    }
+}
@@ -4,6 +4,7 @@ import com.diddycart.modules.sales.dto.OrderRequest;
 import com.diddycart.modules.sales.dto.OrderResponse;
 import com.diddycart.modules.sales.models.OrderStatus;
 import com.diddycart.modules.sales.service.OrderService;
+import com.diddycart.common.pagination.CursorPage;
 import com.diddycart.common.security.JwtUtil;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,6 +44,16 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getUserOrders(userId, pageable));
     }
 
+    // Get My Orders by cursor (keyset pagination, newest first, no total count)
+    @GetMapping("/my-orders/cursor")
+    public ResponseEntity<CursorPage<OrderResponse>> getMyOrdersByCursor(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        Long userId = jwtUtil.extractUserId(token.substring(7));
+        return ResponseEntity.ok(orderService.getUserOrdersAfter(userId, cursor, size));
+    }
+
     // Get Order by ID
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrderById(
@@ -70,6 +81,15 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAllOrders(pageable));
     }
 
+    // ADMIN: Get All Orders by cursor (keyset pagination, newest first, no total count)
+    @GetMapping("/admin/all/cursor")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<CursorPage<OrderResponse>> getAllOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(orderService.getAllOrdersAfter(cursor, size));
+    }
+
     // ADMIN/VENDOR: Update Order Status
     @PutMapping("/admin/{id}/status")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR')")
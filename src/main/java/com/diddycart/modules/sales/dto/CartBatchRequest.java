@@ -0,0 +1,39 @@
+package com.diddycart.modules.sales.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+// Data Transfer Object for batch cart changes ("buy the bundle", reorder)
+// Items are applied in order, all or nothing: ADD adds to a line, SET replaces its quantity
+// (0 removes it), REMOVE drops it (quantity ignored, missing lines are skipped).
+
+@Data
+public class CartBatchRequest {
+
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 100, message = "At most 100 items per request")
+    private List<@Valid Item> items;
+
+    public enum Action {
+        ADD, SET, REMOVE
+    }
+
+    @Data
+    public static class Item {
+
+        @NotNull(message = "Action is required")
+        private Action action;
+
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+
+        @Min(value = 0, message = "Quantity cannot be negative")
+        private Integer quantity;
+    }
+}
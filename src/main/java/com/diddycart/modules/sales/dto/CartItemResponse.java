@@ -11,7 +11,7 @@ import java.math.BigDecimal;
 @Data
 public class CartItemResponse implements Serializable {
     private static final long serialVersionUID = 1L;
-    private Long id;
+    private Long id; // Line ID (cartitem row), null until the line is first saved
     private Long productId;
     private String productName;
     private String productImage;
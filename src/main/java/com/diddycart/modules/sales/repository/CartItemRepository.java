@@ -2,11 +2,25 @@ package com.diddycart.modules.sales.repository;
 
 import com.diddycart.modules.sales.models.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     // Delete a cart item based on cart ID and product ID
     void deleteByCartIdAndProductId(Long cartId, Long productId);
-}
\ No newline at end of file
+
+    // Product of a cart line, only if the line is in this user's cart
+    @Query("SELECT ci.product.id FROM CartItem ci WHERE ci.id = :id AND ci.cart.user.id = :userId")
+    Optional<Long> findProductIdByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Empty a user's cart in one statement (no entity loading)
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN (SELECT c.id FROM Cart c WHERE c.user.id = :userId)")
+    int deleteByUserId(@Param("userId") Long userId);
+}
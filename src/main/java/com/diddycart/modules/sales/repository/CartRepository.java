@@ -3,6 +3,9 @@ package com.diddycart.modules.sales.repository;
 import com.diddycart.modules.sales.models.Cart;
 import com.diddycart.modules.identity.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,4 +15,15 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
 
     // Find the cart belonging to a specific user
     Optional<Cart> findByUser(User user);
-}
\ No newline at end of file
+
+    // The user's cart with its user, lines and their products in one query
+    @Query("SELECT c FROM Cart c JOIN FETCH c.user LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product " +
+            "WHERE c.user.id = :userId")
+    Optional<Cart> findWithItemsByUserId(@Param("userId") Long userId);
+
+    // Create the user's cart unless it exists (unique user_id), inserts nothing for unknown users
+    @Modifying
+    @Query(value = "INSERT INTO cart (user_id) SELECT id FROM users WHERE id = :userId " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int createIfMissing(@Param("userId") Long userId);
+}
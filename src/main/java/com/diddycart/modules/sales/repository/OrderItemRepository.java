@@ -0,0 +1,27 @@
+package com.diddycart.modules.sales.repository;
+
+import com.diddycart.modules.sales.models.OrderItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    // CACHE WARM-UP: Product IDs by units ordered since a date (best sellers first)
+    @Query("SELECT oi.product.id FROM OrderItem oi " +
+            "WHERE oi.order.createdAt >= :since AND oi.product IS NOT NULL " +
+            "GROUP BY oi.product.id ORDER BY SUM(oi.quantity) DESC")
+    List<Long> findTopProductIds(@Param("since") Instant since, Pageable pageable);
+
+    // CACHE WARM-UP: Vendor IDs by units ordered since a date (busiest stores first)
+    @Query("SELECT oi.product.vendor.id FROM OrderItem oi " +
+            "WHERE oi.order.createdAt >= :since AND oi.product IS NOT NULL " +
+            "GROUP BY oi.product.vendor.id ORDER BY SUM(oi.quantity) DESC")
+    List<Long> findTopVendorIds(@Param("since") Instant since, Pageable pageable);
+}
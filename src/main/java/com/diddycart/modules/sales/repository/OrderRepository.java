@@ -8,6 +8,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
@@ -19,6 +20,31 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // USER ORDERS: Fetch all orders for a specific user (with pagination)
     Page<Order> findByUser(User user, Pageable pageable);
 
+    // USER ORDERS (KEYSET): First slice, newest first (idx_orders_user_created_id)
+    @Query(value = "SELECT * FROM orders o WHERE o.user_id = :userId " +
+            "ORDER BY o.created_at DESC, o.id DESC LIMIT :limit", nativeQuery = true)
+    List<Order> findFirstSliceByUser(@Param("userId") Long userId, @Param("limit") int limit);
+
+    // USER ORDERS (KEYSET): Next slice after the last seen (createdAt, id)
+    @Query(value = "SELECT * FROM orders o WHERE o.user_id = :userId " +
+            "AND (o.created_at, o.id) < (:createdAt, :id) " +
+            "ORDER BY o.created_at DESC, o.id DESC LIMIT :limit", nativeQuery = true)
+    List<Order> findSliceByUserAfter(@Param("userId") Long userId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") Long id,
+            @Param("limit") int limit);
+
+    // ADMIN ORDERS (KEYSET): First slice, newest first (idx_orders_created_id)
+    @Query(value = "SELECT * FROM orders o ORDER BY o.created_at DESC, o.id DESC LIMIT :limit", nativeQuery = true)
+    List<Order> findFirstSlice(@Param("limit") int limit);
+
+    // ADMIN ORDERS (KEYSET): Next slice after the last seen (createdAt, id)
+    @Query(value = "SELECT * FROM orders o WHERE (o.created_at, o.id) < (:createdAt, :id) " +
+            "ORDER BY o.created_at DESC, o.id DESC LIMIT :limit", nativeQuery = true)
+    List<Order> findSliceAfter(@Param("createdAt") Instant createdAt,
+            @Param("id") Long id,
+            @Param("limit") int limit);
+
     // USER ORDERS: Fetch all orders for a specific user (without pagination)
     List<Order> findByUser(User user);
 
@@ -1,31 +1,42 @@
 package com.diddycart.modules.sales.service;
 
-import com.diddycart.modules.sales.dto.CartItemResponse;
+import com.diddycart.modules.sales.dto.CartBatchRequest;
 import com.diddycart.modules.sales.dto.CartResponse;
 import com.diddycart.modules.sales.models.Cart;
 import com.diddycart.modules.sales.models.CartItem;
-import com.diddycart.modules.identity.models.User;
 import com.diddycart.modules.sales.repository.CartItemRepository;
 import com.diddycart.modules.sales.repository.CartRepository;
-import com.diddycart.modules.identity.repository.UserRepository;
+import com.diddycart.modules.products.dto.ProductResponse;
 import com.diddycart.modules.products.models.Product;
+import com.diddycart.modules.products.models.ProductCard;
+import com.diddycart.modules.products.repository.ProductCardRepository;
 import com.diddycart.modules.products.repository.ProductRepository;
+import com.diddycart.modules.products.service.ProductService;
+import com.diddycart.modules.products.service.ProductStockService;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+// Shopping carts. The live cart is a Redis hash per user (see CartStore), persisted to
+// the cart/cartitem tables behind the request; Postgres is used directly only while
+// Redis is unavailable. Guest carts (anonymous shoppers, opaque token) are Redis only and
+// are merged into the user's cart on login/register.
 @Service
 public class CartService {
 
+    private static final String GUEST_UNAVAILABLE = "Guest carts are temporarily unavailable, please sign in";
+
     @Autowired
     private CartRepository cartRepository;
 
@@ -36,46 +47,229 @@ public class CartService {
     private ProductRepository productRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private ProductCardRepository productCardRepository;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductStockService productStockService;
 
-    // Retrieve or Create Cart by userId
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Retrieve or Create Cart by userId, with its lines and products in one query
+    // (an existing cart costs one statement, a new one an upsert and a re-read)
     public Cart getOrCreateCart(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        Optional<Cart> cart = cartRepository.findWithItemsByUserId(userId);
+        if (cart.isPresent()) {
+            return cart.get();
+        }
 
-        // Find cart by user or create new cart
-        return cartRepository.findByUser(user)
-                .orElseGet(() -> {
-                    // Create new cart
-                    Cart newCart = new Cart();
-                    newCart.setUser(user);
-                    return cartRepository.save(newCart);
-                });
+        // Create new cart (a concurrent request may have created it already)
+        cartRepository.createIfMissing(userId);
+        return cartRepository.findWithItemsByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
-    // Get my Cart by userId checks cache first
-    @Cacheable(value = "cart", key = "#userId")
+    // Get my Cart by userId (Redis hash, one Postgres statement when Redis is unavailable)
     public CartResponse getCart(Long userId) {
-        Cart cart = getOrCreateCart(userId);
+        CartResponse cart = cartStore.read(userId);
+        return cart != null ? cart : cartStore.load(userId);
+    }
+
+    // Add Item to Cart by userId, productId, quantity
+    public CartResponse addToCart(Long userId, Long productId, Integer quantity) {
+        ProductResponse product = checkStock(productId, quantity);
+        CartResponse cart = cartStore.add(userId, product, quantity);
+        return cart != null ? cart
+                : transactionTemplate().execute(status -> addToCartInDb(userId, productId, quantity));
+    }
+
+    // Remove Item from Cart by userId and productId
+    public CartResponse removeFromCart(Long userId, Long productId) {
+        CartResponse cart = cartStore.remove(userId, productId);
+        return cart != null ? cart : transactionTemplate().execute(status -> removeFromCartInDb(userId, productId));
+    }
 
-        // Map Cart to CartResponse
-        return mapToResponse(cart);
+    // Remove Item from Cart by its line ID (the cartitem row, so only lines already saved)
+    public CartResponse removeCartLine(Long userId, Long cartItemId) {
+        Long productId = cartItemRepository.findProductIdByIdAndUserId(cartItemId, userId)
+                .orElseThrow(() -> new RuntimeException("Item not found"));
+        return removeFromCart(userId, productId);
+    }
+
+    // Apply several line changes at once, all or nothing: one product read, one stock read
+    // and one cart write for the whole batch
+    public CartResponse applyBatch(Long userId, CartBatchRequest request) {
+        List<CartBatchRequest.Item> items = request.getItems();
+        Map<Long, ProductCard> products = checkBatch(items);
+
+        CartResponse cart = cartStore.apply(userId, items, products);
+        return cart != null ? cart : transactionTemplate().execute(status -> applyBatchInDb(userId, items));
     }
 
-    // Add Item to Cart by userId, productId, quantity and update cache
+    // Clear Cart by userId (Postgres rows now in one statement, Redis hash after commit)
     @Transactional
-    @CachePut(value = "cart", key = "#userId")
-    public CartResponse addToCart(Long userId, Long productId, Integer quantity) {
-        Cart cart = getOrCreateCart(userId);
+    public void clearCart(Long userId) {
+        cartStore.invalidate(userId);
+        cartItemRepository.deleteByUserId(userId);
+    }
 
-        // Find product by productId
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+    // Persist the live cart before checkout reads the cart rows, checkout stops if it could not be
+    public void flushCart(Long userId) {
+        if (!cartStore.flush(userId)) {
+            throw new RuntimeException("Cart could not be saved, please try again");
+        }
+    }
+
+    // New guest cart token, handed to the client on its first change
+    public String newGuestToken() {
+        return cartStore.newGuestToken();
+    }
+
+    // Get a guest cart by token (empty without one)
+    public CartResponse getGuestCart(String token) {
+        if (token == null) {
+            CartResponse empty = new CartResponse();
+            empty.setItems(new ArrayList<>());
+            empty.setTotalAmount(BigDecimal.ZERO);
+            return empty;
+        }
+        return requireGuestStore(cartStore.readGuest(token));
+    }
+
+    // Add Item to a guest cart, same checks as for users
+    public CartResponse addToGuestCart(String token, Long productId, Integer quantity) {
+        ProductResponse product = checkStock(productId, quantity);
+        return requireGuestStore(cartStore.addGuest(token, product, quantity));
+    }
+
+    // Remove Item from a guest cart
+    public CartResponse removeFromGuestCart(String token, Long productId) {
+        return requireGuestStore(cartStore.removeGuest(token, productId));
+    }
+
+    // Apply several line changes to a guest cart, all or nothing
+    public CartResponse applyGuestBatch(String token, CartBatchRequest request) {
+        Map<Long, ProductCard> products = checkBatch(request.getItems());
+        return requireGuestStore(cartStore.applyGuest(token, request.getItems(), products));
+    }
+
+    // Clear a guest cart
+    public void clearGuestCart(String token) {
+        if (!cartStore.clearGuest(token)) {
+            throw new RuntimeException(GUEST_UNAVAILABLE);
+        }
+    }
+
+    // Fold the shopper's guest cart into their cart on login/register, checked like a batch: one
+    // product read and one stock read. Login never fails on a stale guest cart, so lines of deleted
+    // products are dropped and quantities capped at the stock left after the user's own lines.
+    // Best effort: while Redis is unavailable the guest cart stays and merges on a later login
+    public void mergeGuestCart(Long userId, String token) {
+        if (token == null || token.isBlank()) {
+            return;
+        }
+        Map<Long, Integer> guest = cartStore.readGuestQuantities(token);
+        if (guest == null || guest.isEmpty()) {
+            return;
+        }
+        CartResponse cart = cartStore.read(userId);
+        if (cart == null) {
+            return;
+        }
+
+        Map<Long, Integer> inCart = new HashMap<>();
+        cart.getItems().forEach(item -> inCart.put(item.getProductId(), item.getQuantity()));
+
+        Map<Long, ProductCard> products = new HashMap<>();
+        productCardRepository.findAllById(guest.keySet()).forEach(card -> products.put(card.getId(), card));
+        Map<Long, Integer> available = products.isEmpty() ? Map.of()
+                : productStockService.getAvailable(products.keySet());
+
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        guest.forEach((productId, quantity) -> {
+            if (!products.containsKey(productId)) {
+                return;
+            }
+            int left = available.getOrDefault(productId, 0) - inCart.getOrDefault(productId, 0);
+            if (Math.min(quantity, left) > 0) {
+                lines.put(productId, Math.min(quantity, left));
+            }
+        });
+        cartStore.mergeGuest(userId, token, lines, products);
+    }
+
+    // Product snapshot and live stock come from the product cache / stock counters
+    private ProductResponse checkStock(Long productId, Integer quantity) {
+        ProductResponse product = productService.getProductById(productId);
+        Integer available = productStockService.getAvailable(productId);
 
         // Check if product has enough stock
-        if (product.getStockQuantity() < quantity) {
+        if (available == null || available < quantity) {
             throw new RuntimeException("Not enough stock available");
         }
+        return product;
+    }
+
+    // Validate a batch with one product read and one stock read, returns the products by ID
+    private Map<Long, ProductCard> checkBatch(List<CartBatchRequest.Item> items) {
+        // Quantity each product must be able to supply after the batch (ADD adds up, SET resets)
+        Map<Long, Integer> wanted = new LinkedHashMap<>();
+        for (CartBatchRequest.Item item : items) {
+            if (item.getAction() == CartBatchRequest.Action.REMOVE) {
+                continue;
+            }
+            Integer quantity = item.getQuantity();
+            if (quantity == null || (item.getAction() == CartBatchRequest.Action.ADD && quantity < 1)) {
+                throw new RuntimeException("Quantity is required for product " + item.getProductId());
+            }
+            wanted.merge(item.getProductId(), quantity,
+                    item.getAction() == CartBatchRequest.Action.ADD ? Integer::sum : (old, set) -> set);
+        }
+
+        // Validate every product before touching the cart
+        Map<Long, ProductCard> products = new HashMap<>();
+        if (!wanted.isEmpty()) {
+            productCardRepository.findAllById(wanted.keySet()).forEach(card -> products.put(card.getId(), card));
+            List<Long> missing = wanted.keySet().stream().filter(id -> !products.containsKey(id)).toList();
+            if (!missing.isEmpty()) {
+                throw new RuntimeException("Products not found: " + missing);
+            }
+
+            Map<Long, Integer> available = productStockService.getAvailable(wanted.keySet());
+            List<Long> insufficient = wanted.entrySet().stream()
+                    .filter(e -> e.getValue() > available.getOrDefault(e.getKey(), 0))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (!insufficient.isEmpty()) {
+                throw new RuntimeException("Not enough stock available for products: " + insufficient);
+            }
+        }
+
+        return products;
+    }
+
+    // Guest carts have no Postgres fallback
+    private CartResponse requireGuestStore(CartResponse cart) {
+        if (cart == null) {
+            throw new RuntimeException(GUEST_UNAVAILABLE);
+        }
+        return cart;
+    }
+
+    // Fallback while Redis is unavailable: the original Postgres path
+    private CartResponse addToCartInDb(Long userId, Long productId, Integer quantity) {
+        cartStore.invalidate(userId); // first: waits for a running flush of this cart
+        Cart cart = getOrCreateCart(userId);
+
+        // Find product by productId
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
 
         // Initialize list if null (Important!)
         if (cart.getItems() == null) {
@@ -104,82 +298,80 @@ public class CartService {
             // Add new cart item to cart
             cart.getItems().add(newItem);
         }
-
-        // Map Cart to CartResponse
-        return mapToResponse(cart);
+        return reload(userId);
     }
 
-    // Remove Item from Cart by userId, cartItemId and update cache
-    @Transactional
-    @CachePut(value = "cart", key = "#userId")
-    public CartResponse removeFromCart(Long userId, Long cartItemId) {
-        // Find cart item by cartItemId
-        CartItem item = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new RuntimeException("Item not found"));
-
-        // Security Check by userId and cartItemId
-        if (!item.getCart().getUser().getId().equals(userId)) {
-            throw new RuntimeException("You are not authorized to remove this item");
-        }
+    // Fallback while Redis is unavailable: remove the line from Postgres
+    private CartResponse removeFromCartInDb(Long userId, Long productId) {
+        cartStore.invalidate(userId); // first: waits for a running flush of this cart
+        Cart cart = getOrCreateCart(userId);
 
-        // Remove cart item from cart
-        if (item.getCart().getItems() != null) {
-            item.getCart().getItems().remove(item);
+        // Find cart item by productId
+        CartItem item = cart.getItems() == null ? null : cart.getItems().stream()
+                .filter(line -> line.getProduct().getId().equals(productId))
+                .findFirst()
+                .orElse(null);
+        if (item == null) {
+            throw new RuntimeException("Item not found");
         }
 
-        // Delete cart item
+        // Remove and delete cart item
+        cart.getItems().remove(item);
         cartItemRepository.delete(item);
-
-        // Map Cart to CartResponse
-        return getCart(userId);
+        return reload(userId);
     }
 
-    // Clear Cart by userId and update cache
-    @Transactional
-    @CacheEvict(value = "cart", key = "#userId")
-    public void clearCart(Long userId) {
-        // Find cart by userId
+    // Fallback while Redis is unavailable: same batch against the cart rows, one flush
+    private CartResponse applyBatchInDb(Long userId, List<CartBatchRequest.Item> items) {
+        cartStore.invalidate(userId); // first: waits for a running flush of this cart
         Cart cart = getOrCreateCart(userId);
-
-        // If cart has items, delete all cart items
-        if (cart.getItems() != null) {
-            cartItemRepository.deleteAll(cart.getItems());
-            cart.getItems().clear();
+        if (cart.getItems() == null) {
+            cart.setItems(new ArrayList<>());
         }
-    }
-
-    // Map Cart to CartResponse
-    private CartResponse mapToResponse(Cart cart) {
-        CartResponse response = new CartResponse();
-        response.setCartId(cart.getId());
 
-        List<CartItemResponse> itemResponses = new ArrayList<>();
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        Map<Long, CartItem> lines = new HashMap<>();
+        cart.getItems().forEach(line -> lines.put(line.getProduct().getId(), line));
 
-        if (cart.getItems() != null) {
-            for (CartItem item : cart.getItems()) {
-                CartItemResponse itemResponse = new CartItemResponse();
-                itemResponse.setId(item.getId());
-                itemResponse.setProductId(item.getProduct().getId());
-                itemResponse.setProductName(item.getProduct().getName());
-                itemResponse.setPrice(item.getProduct().getPrice());
-                itemResponse.setQuantity(item.getQuantity());
+        for (CartBatchRequest.Item item : items) {
+            Long productId = item.getProductId();
+            CartItem line = lines.get(productId);
+            boolean drop = item.getAction() == CartBatchRequest.Action.REMOVE
+                    || (item.getAction() == CartBatchRequest.Action.SET && item.getQuantity() == 0);
 
-                // Get first image if available
-                if (item.getProduct().getImages() != null && !item.getProduct().getImages().isEmpty()) {
-                    itemResponse.setProductImage(item.getProduct().getImages().get(0).getImageUrl());
+            if (drop) {
+                // orphanRemoval deletes the row on flush
+                if (line != null) {
+                    cart.getItems().remove(line);
+                    lines.remove(productId);
                 }
+                continue;
+            }
 
-                BigDecimal subTotal = item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-                itemResponse.setSubTotal(subTotal);
-                totalAmount = totalAmount.add(subTotal);
-
-                itemResponses.add(itemResponse);
+            if (line == null) {
+                line = new CartItem();
+                line.setCart(cart);
+                line.setProduct(productRepository.getReferenceById(productId));
+                line.setQuantity(0);
+                cart.getItems().add(line);
+                lines.put(productId, line);
             }
+            line.setQuantity(item.getAction() == CartBatchRequest.Action.ADD
+                    ? line.getQuantity() + item.getQuantity()
+                    : item.getQuantity());
         }
 
-        response.setItems(itemResponses);
-        response.setTotalAmount(totalAmount);
-        return response;
+        cartRepository.save(cart);
+        return reload(userId);
+    }
+
+    private TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    // Fallback writes answer from the rows just written: lines, products and first images in one
+    // statement instead of walking the lazy product images
+    private CartResponse reload(Long userId) {
+        cartRepository.flush();
+        return cartStore.load(userId);
     }
-}
\ No newline at end of file
+}
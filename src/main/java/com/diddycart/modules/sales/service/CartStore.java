@@ -0,0 +1,994 @@
+package com.diddycart.modules.sales.service;
+
+import com.diddycart.common.cache.CacheProperties;
+import com.diddycart.common.cache.RedisCircuitBreaker;
+import com.diddycart.modules.products.dto.ProductResponse;
+import com.diddycart.modules.products.models.ProductCard;
+import com.diddycart.modules.sales.dto.CartBatchRequest;
+import com.diddycart.modules.sales.dto.CartItemResponse;
+import com.diddycart.modules.sales.dto.CartResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// Live carts in Redis, written behind to Postgres.
+//
+// One hash per user ("cart:user:<userId>"): "id" -> cart row ID, "v" -> cart row version it
+// was loaded from, and per line
+// "q:<productId>" -> quantity, "s:<productId>" -> price/name/image snapshot taken when the
+// line was added, "o:<productId>" -> when it was first added (display order), "i:<productId>" -> its
+// cartitem row ID (the line ID clients see, written back by the first flush of the line). Each change
+// is one Lua call that also marks the user dirty ("cart:dirty") and returns the new hash.
+// A scheduled flusher drains the dirty set in batches and writes every cart's current lines
+// with set-based SQL, so any number of clicks between two flushes cost one write. A batch is
+// moved to this node's "cart:flushing:<node>" set and only leaves it once its write commits;
+// nodes heartbeat in "cart:flushers", and the sets of a node silent for NODE_TIMEOUT (killed
+// mid-flush) are moved back to the dirty set by the others.
+// A hash that is missing (TTL, eviction, Redis restart) is rebuilt from Postgres on next
+// access; changes not flushed by then (at most one flush interval) are lost.
+//
+// Guest carts ("cart:guest:<token>", opaque random token) use the same line fields plus a
+// marker field; they live in Redis only, with their own TTL, and are folded into the user's
+// hash in one script call on login/register.
+//
+// Every method returns null when Redis is unavailable, callers then work on Postgres directly
+// and call invalidate(), which bumps cart.version (migration 008). The flusher writes a hash
+// only while the locked row still has the version the hash was loaded from; a hash behind it
+// (e.g. other nodes kept using Redis while this one wrote to Postgres) is dropped instead of
+// flushed over the newer rows. This node also drops it as soon as it reaches Redis again
+// (staleUsers); until then other nodes may still read the older hash.
+@Service
+public class CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CartStore.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final String PREFIX = "cart:user:";
+    private static final String GUEST_PREFIX = "cart:guest:";
+    private static final String DIRTY_KEY = "cart:dirty";
+    private static final String FLUSHING_PREFIX = "cart:flushing:";
+    private static final String FLUSHERS_KEY = "cart:flushers";
+    private static final String CART_ID = "id";
+    private static final String VERSION = "v";
+    private static final String QUANTITY = "q:";
+    private static final String SNAPSHOT = "s:";
+    private static final String ADDED = "o:";
+    private static final String LINE_ID = "i:";
+    private static final String GUEST = "g";
+
+    // 128 random bits, base64url without padding
+    private static final Pattern GUEST_TOKEN = Pattern.compile("[A-Za-z0-9_-]{22}");
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Flush batches per scheduled run, the rest waits for the next run
+    private static final int MAX_BATCHES_PER_RUN = 10;
+
+    // A flusher without a heartbeat for this long is gone, its claimed carts are flushed by others
+    private static final Duration NODE_TIMEOUT = Duration.ofMinutes(1);
+
+    // Script results: status, then the hash as field/value pairs
+    private static final String NO_HASH = "0";
+    private static final String OK = "1";
+    private static final String NOT_IN_CART = "2";
+
+    // KEYS: cart, dirty set | ARGV: productId, quantity delta, snapshot, now, ttl, userId ('' for guests)
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> ADD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return {'0'} end " +
+                    "redis.call('hincrby', KEYS[1], 'q:' .. ARGV[1], ARGV[2]) " +
+                    "redis.call('hset', KEYS[1], 's:' .. ARGV[1], ARGV[3]) " +
+                    "redis.call('hsetnx', KEYS[1], 'o:' .. ARGV[1], ARGV[4]) " +
+                    "redis.call('expire', KEYS[1], ARGV[5]) " +
+                    "if ARGV[6] ~= '' then redis.call('sadd', KEYS[2], ARGV[6]) end " +
+                    "local cart = redis.call('hgetall', KEYS[1]) " +
+                    "table.insert(cart, 1, '1') " +
+                    "return cart",
+            List.class);
+
+    // KEYS: cart, dirty set | ARGV: productId, ttl, userId ('' for guests)
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return {'0'} end " +
+                    "if redis.call('hdel', KEYS[1], 'q:' .. ARGV[1], 's:' .. ARGV[1], 'o:' .. ARGV[1], " +
+                    "'i:' .. ARGV[1]) == 0 " +
+                    "then return {'2'} end " +
+                    "redis.call('expire', KEYS[1], ARGV[2]) " +
+                    "if ARGV[3] ~= '' then redis.call('sadd', KEYS[2], ARGV[3]) end " +
+                    "local cart = redis.call('hgetall', KEYS[1]) " +
+                    "table.insert(cart, 1, '1') " +
+                    "return cart",
+            List.class);
+
+    // Several changes in one call, applied in order
+    // KEYS: cart, dirty set | ARGV: ttl, userId ('' for guests), now, then per item: action, productId,
+    // quantity, snapshot
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> BATCH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return {'0'} end " +
+                    "for i = 4, #ARGV, 4 do " +
+                    "local id = ARGV[i + 1] " +
+                    "local quantity = tonumber(ARGV[i + 2]) " +
+                    "if ARGV[i] == 'REMOVE' or (ARGV[i] == 'SET' and quantity <= 0) then " +
+                    "redis.call('hdel', KEYS[1], 'q:' .. id, 's:' .. id, 'o:' .. id, 'i:' .. id) " +
+                    "else " +
+                    "if ARGV[i] == 'SET' then redis.call('hset', KEYS[1], 'q:' .. id, quantity) " +
+                    "else redis.call('hincrby', KEYS[1], 'q:' .. id, quantity) end " +
+                    "redis.call('hset', KEYS[1], 's:' .. id, ARGV[i + 3]) " +
+                    "redis.call('hsetnx', KEYS[1], 'o:' .. id, tonumber(ARGV[3]) + i) " +
+                    "end " +
+                    "end " +
+                    "redis.call('expire', KEYS[1], ARGV[1]) " +
+                    "if ARGV[2] ~= '' then redis.call('sadd', KEYS[2], ARGV[2]) end " +
+                    "local cart = redis.call('hgetall', KEYS[1]) " +
+                    "table.insert(cart, 1, '1') " +
+                    "return cart",
+            List.class);
+
+    // Move a guest cart into a user's cart: the validated lines add up, their snapshots win, lines keep
+    // the guest's first-added time; the guest cart is deleted, nothing is added if it is already gone
+    // KEYS: cart, dirty set, guest cart | ARGV: ttl, userId, now, then per line: productId, quantity, snapshot
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> MERGE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return {'0'} end " +
+                    "if redis.call('exists', KEYS[3]) == 1 then " +
+                    "for i = 4, #ARGV, 3 do " +
+                    "local id = ARGV[i] " +
+                    "local added = redis.call('hget', KEYS[3], 'o:' .. id) or ARGV[3] " +
+                    "redis.call('hincrby', KEYS[1], 'q:' .. id, ARGV[i + 1]) " +
+                    "redis.call('hset', KEYS[1], 's:' .. id, ARGV[i + 2]) " +
+                    "redis.call('hsetnx', KEYS[1], 'o:' .. id, added) " +
+                    "end " +
+                    "redis.call('del', KEYS[3]) " +
+                    "if #ARGV > 3 then redis.call('sadd', KEYS[2], ARGV[2]) end " +
+                    "end " +
+                    "redis.call('expire', KEYS[1], ARGV[1]) " +
+                    "local cart = redis.call('hgetall', KEYS[1]) " +
+                    "table.insert(cart, 1, '1') " +
+                    "return cart",
+            List.class);
+
+    // Drop the hashes of these users unless they hold unflushed changes
+    // KEYS: dirty set, then one cart per user | ARGV: the userIds
+    private static final DefaultRedisScript<Long> DROP_CLEAN_SCRIPT = new DefaultRedisScript<>(
+            "local dropped = 0 " +
+                    "for i = 2, #KEYS do " +
+                    "if redis.call('sismember', KEYS[1], ARGV[i - 1]) == 0 then " +
+                    "dropped = dropped + redis.call('del', KEYS[i]) end " +
+                    "end " +
+                    "return dropped",
+            Long.class);
+
+    // Drop a hash loaded before a direct Postgres write, unless it was reloaded in the meantime
+    // KEYS: cart, dirty set | ARGV: userId, version the flusher found behind
+    private static final DefaultRedisScript<Long> DROP_SUPERSEDED_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('hget', KEYS[1], 'v') or '0') ~= ARGV[2] then return 0 end " +
+                    "redis.call('del', KEYS[1]) " +
+                    "redis.call('srem', KEYS[2], ARGV[1]) " +
+                    "return 1",
+            Long.class);
+
+    // Heartbeat, hand the claimed carts of silent nodes back to the dirty set, then move up to
+    // ARGV[1] dirty users to this node's flushing set and return them (flushing keys of other
+    // nodes are derived in the script, so the cart keys must share one Redis, not a Cluster)
+    // KEYS: dirty set, own flushing set, flushers | ARGV: count, node, now, timeout (ms), flushing prefix
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('hset', KEYS[3], ARGV[2], ARGV[3]) " +
+                    "local nodes = redis.call('hgetall', KEYS[3]) " +
+                    "for i = 1, #nodes, 2 do " +
+                    "if nodes[i] ~= ARGV[2] and tonumber(nodes[i + 1]) < tonumber(ARGV[3]) - tonumber(ARGV[4]) then " +
+                    "redis.call('sunionstore', KEYS[1], KEYS[1], ARGV[5] .. nodes[i]) " +
+                    "redis.call('del', ARGV[5] .. nodes[i]) " +
+                    "redis.call('hdel', KEYS[3], nodes[i]) " +
+                    "end " +
+                    "end " +
+                    "local ids = redis.call('srandmember', KEYS[1], ARGV[1]) " +
+                    "if #ids > 0 then " +
+                    "redis.call('sadd', KEYS[2], unpack(ids)) " +
+                    "redis.call('srem', KEYS[1], unpack(ids)) " +
+                    "end " +
+                    "return ids",
+            List.class);
+
+    // Done with claimed users: forget them, and with ARGV[1] = '1' mark them dirty again
+    // KEYS: own flushing set, dirty set | ARGV: requeue, then the userIds
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV do " +
+                    "redis.call('srem', KEYS[1], ARGV[i]) " +
+                    "if ARGV[1] == '1' then redis.call('sadd', KEYS[2], ARGV[i]) end " +
+                    "end " +
+                    "return 1",
+            Long.class);
+
+    // Hand everything this node claimed back to the dirty set (recovery, shutdown); ARGV[1] also
+    // drops the node's heartbeat | KEYS: own flushing set, dirty set, flushers | ARGV: node or ''
+    private static final DefaultRedisScript<Long> RETURN_CLAIMED_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('sunionstore', KEYS[2], KEYS[2], KEYS[1]) " +
+                    "redis.call('del', KEYS[1]) " +
+                    "if ARGV[1] ~= '' then redis.call('hdel', KEYS[3], ARGV[1]) end " +
+                    "return 1",
+            Long.class);
+
+    // Record the row IDs of newly written lines still in the cart | KEYS: cart | ARGV: productId/ID pairs
+    private static final DefaultRedisScript<Long> SET_LINE_IDS_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #ARGV, 2 do " +
+                    "if redis.call('hexists', KEYS[1], 'q:' .. ARGV[i]) == 1 then " +
+                    "redis.call('hset', KEYS[1], 'i:' .. ARGV[i], ARGV[i + 1]) end " +
+                    "end " +
+                    "return 1",
+            Long.class);
+
+    // Seed a hash from Postgres unless another request already did | ARGV: ttl, field/value pairs
+    private static final DefaultRedisScript<Long> HYDRATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then return 0 end " +
+                    "redis.call('hset', KEYS[1], unpack(ARGV, 2)) " +
+                    "redis.call('expire', KEYS[1], ARGV[1]) " +
+                    "return 1",
+            Long.class);
+
+    // The user's cart (created if missing) with its lines, their products and first images in one statement
+    private static final String LOAD_CART = "WITH created AS (" +
+            "INSERT INTO cart (user_id) VALUES (?) ON CONFLICT (user_id) DO NOTHING RETURNING id, version), " +
+            "c AS (SELECT id, version FROM created UNION ALL SELECT id, version FROM cart WHERE user_id = ?) " +
+            "SELECT c.id, ci.product_id, ci.quantity, p.name, p.price, " +
+            "(SELECT i.image_url FROM product_image i WHERE i.product_id = p.id ORDER BY i.id LIMIT 1), " +
+            "c.version, ci.id " +
+            "FROM c LEFT JOIN cartitem ci ON ci.cart_id = c.id " +
+            "LEFT JOIN products p ON p.id = ci.product_id " +
+            "ORDER BY ci.id";
+
+    // Row locks serialize flushes of the same cart across nodes (hashes are read after locking)
+    private static final String LOCK_CARTS = "SELECT id, user_id, version FROM cart WHERE user_id = ANY(?) " +
+            "ORDER BY id FOR UPDATE";
+
+    // Row IDs of lines the flush just wrote for the first time
+    private static final String SELECT_LINE_IDS = "SELECT ci.cart_id, ci.product_id, ci.id FROM cartitem ci " +
+            "JOIN unnest(?::bigint[], ?::bigint[]) AS l(cart_id, product_id) " +
+            "ON l.cart_id = ci.cart_id AND l.product_id = ci.product_id";
+
+    // Direct writes move the version (and lock the row, so they wait for a running flush)
+    private static final String BUMP_VERSION = "UPDATE cart SET version = version + 1 WHERE user_id = ?";
+
+    private static final String DELETE_REMOVED_LINES = "DELETE FROM cartitem ci WHERE ci.cart_id = ANY(?) " +
+            "AND NOT EXISTS (SELECT 1 FROM unnest(?::bigint[], ?::bigint[]) AS l(cart_id, product_id) " +
+            "WHERE l.cart_id = ci.cart_id AND l.product_id = ci.product_id)";
+
+    // Lines of products deleted in the meantime are dropped by the join
+    private static final String UPSERT_LINES = "INSERT INTO cartitem (cart_id, product_id, quantity) " +
+            "SELECT l.cart_id, l.product_id, l.quantity " +
+            "FROM unnest(?::bigint[], ?::bigint[], ?::int[]) AS l(cart_id, product_id, quantity) " +
+            "JOIN products p ON p.id = l.product_id " +
+            "ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = EXCLUDED.quantity " +
+            "WHERE cartitem.quantity IS DISTINCT FROM EXCLUDED.quantity";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Users whose cart was written straight to Postgres, their hash is dropped before next use
+    private final Set<Long> staleUsers = ConcurrentHashMap.newKeySet();
+
+    // Users whose flush failed after they left the dirty set, re-marked once Redis is back
+    private final Set<Long> unflushedUsers = ConcurrentHashMap.newKeySet();
+
+    // This node's flusher identity and the set holding the carts it is writing
+    private final String nodeId = UUID.randomUUID().toString();
+    private final String flushingKey = FLUSHING_PREFIX + nodeId;
+
+    @PostConstruct
+    public void registerRecovery() {
+        circuitBreaker.addRecoveryListener(this::onRedisRecovered);
+    }
+
+    // Graceful shutdown: claimed carts go straight back instead of waiting for NODE_TIMEOUT
+    @PreDestroy
+    public void leave() {
+        call(() -> redisTemplate.execute(RETURN_CLAIMED_SCRIPT, List.of(flushingKey, DIRTY_KEY, FLUSHERS_KEY),
+                nodeId));
+    }
+
+    // Current cart, rebuilt from Postgres if Redis lost it
+    public CartResponse read(Long userId) {
+        if (!dropIfStale(userId)) {
+            return null;
+        }
+        Map<String, String> entries = call(() -> redisTemplate.<String, String>opsForHash().entries(key(userId)));
+        if (entries != null && entries.isEmpty()) {
+            entries = hydrate(userId);
+        }
+        return entries != null ? toResponse(entries) : null;
+    }
+
+    // Add a quantity of a product, snapshotting it as the shopper saw it
+    public CartResponse add(Long userId, ProductResponse product, int quantity) {
+        return mutate(userId, ADD_SCRIPT, addArgs(product, quantity, ttlSeconds(), String.valueOf(userId)));
+    }
+
+    // Remove the line of a product, throws if it is not in the cart
+    public CartResponse remove(Long userId, Long productId) {
+        return mutate(userId, REMOVE_SCRIPT, String.valueOf(productId), ttlSeconds(), String.valueOf(userId));
+    }
+
+    // Apply batch changes atomically; products supplies the snapshots of added/updated lines
+    public CartResponse apply(Long userId, List<CartBatchRequest.Item> items, Map<Long, ProductCard> products) {
+        return mutate(userId, BATCH_SCRIPT, batchArgs(items, products, ttlSeconds(), String.valueOf(userId)));
+    }
+
+    // New guest cart token (the hash itself is created on the first change)
+    public String newGuestToken() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // Guest cart, empty if it expired or never had a line
+    public CartResponse readGuest(String token) {
+        String key = guestKey(token);
+        Map<String, String> entries = call(() -> redisTemplate.<String, String>opsForHash().entries(key));
+        return entries != null ? toResponse(entries) : null;
+    }
+
+    // Same changes for guest carts (never marked dirty, nothing to flush)
+    public CartResponse addGuest(String token, ProductResponse product, int quantity) {
+        return mutateGuest(token, ADD_SCRIPT, addArgs(product, quantity, guestTtlSeconds(), ""));
+    }
+
+    public CartResponse removeGuest(String token, Long productId) {
+        return mutateGuest(token, REMOVE_SCRIPT, String.valueOf(productId), guestTtlSeconds(), "");
+    }
+
+    public CartResponse applyGuest(String token, List<CartBatchRequest.Item> items, Map<Long, ProductCard> products) {
+        return mutateGuest(token, BATCH_SCRIPT, batchArgs(items, products, guestTtlSeconds(), ""));
+    }
+
+    // Drop a guest cart, false if Redis is unavailable
+    public boolean clearGuest(String token) {
+        String key = guestKey(token);
+        return call(() -> redisTemplate.delete(key)) != null;
+    }
+
+    // Quantities of a guest cart by product, null if Redis is unavailable or the token is invalid
+    public Map<Long, Integer> readGuestQuantities(String token) {
+        if (token == null || !GUEST_TOKEN.matcher(token).matches()) {
+            return null;
+        }
+        String key = guestKey(token);
+        Map<String, String> entries = call(() -> redisTemplate.<String, String>opsForHash().entries(key));
+        if (entries == null) {
+            return null;
+        }
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        entries.forEach((field, value) -> {
+            if (field.startsWith(QUANTITY)) {
+                quantities.put(Long.valueOf(field.substring(QUANTITY.length())), Integer.valueOf(value));
+            }
+        });
+        return quantities;
+    }
+
+    // Fold the checked lines of a guest cart into the user's cart and delete it, atomically so a
+    // token merges once; products supplies the snapshots. Null if Redis is unavailable (the guest
+    // cart then stays until its TTL) or the token is invalid
+    public CartResponse mergeGuest(Long userId, String token, Map<Long, Integer> quantities,
+            Map<Long, ProductCard> products) {
+        if (token == null || !GUEST_TOKEN.matcher(token).matches()) {
+            return null;
+        }
+        List<String> args = new ArrayList<>(3 + quantities.size() * 3);
+        args.add(ttlSeconds());
+        args.add(String.valueOf(userId));
+        args.add(String.valueOf(System.currentTimeMillis()));
+        quantities.forEach((productId, quantity) -> {
+            ProductCard card = products.get(productId);
+            args.add(String.valueOf(productId));
+            args.add(String.valueOf(quantity));
+            args.add(toJson(new Snapshot(card.getName(), card.getPrice(), card.getImageUrl())));
+        });
+        return mutate(userId, List.of(key(userId), DIRTY_KEY, guestKey(token)), MERGE_SCRIPT,
+                args.toArray(String[]::new));
+    }
+
+    // Cart straight from Postgres in one statement (creating the row if missing), for reads
+    // while Redis is unavailable
+    public CartResponse load(Long userId) {
+        return toResponse(loadEntries(userId));
+    }
+
+    // Postgres is being changed directly for this user (fallback writes, clear, checkout), call
+    // it inside that transaction before the change: moves the cart version so the hash can no
+    // longer be flushed, and drops the hash once the change commits so the next access rebuilds it
+    public void invalidate(Long userId) {
+        jdbcTemplate.update(BUMP_VERSION, userId);
+        staleUsers.add(userId);
+        afterCommit(() -> dropIfStale(userId));
+    }
+
+    // Carts emptied in Postgres by the sweeper: drop hashes loaded before the sweep so they
+    // are rebuilt; a hash with unflushed changes is newer than the sweep and is kept
+    public void evictSwept(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(userIds.size() + 1);
+        keys.add(DIRTY_KEY);
+        userIds.forEach(userId -> keys.add(key(userId)));
+        Object[] args = userIds.stream().map(String::valueOf).toArray();
+        if (call(() -> redisTemplate.execute(DROP_CLEAN_SCRIPT, keys, args)) == null) {
+            staleUsers.addAll(userIds); // dropped once Redis is back
+        }
+    }
+
+    // Write one user's cart now (checkout reads the rows), false if changed lines could not be written.
+    // While Redis is unavailable cart writes go to Postgres, so only a known unflushed cart fails.
+    public boolean flush(Long userId) {
+        boolean unflushed = unflushedUsers.contains(userId);
+        if (!dropIfStale(userId)) {
+            return !unflushed;
+        }
+        Boolean claimed = call(() -> redisTemplate.opsForSet().move(DIRTY_KEY, String.valueOf(userId), flushingKey));
+        if (claimed == null) {
+            return !unflushed;
+        }
+
+        boolean dirty = claimed || unflushed;
+        int flushed;
+        try {
+            flushed = flushCarts(List.of(userId));
+        } catch (RuntimeException e) {
+            release(List.of(userId), dirty);
+            throw e;
+        }
+        if (flushed < 0) {
+            release(List.of(userId), dirty);
+            return !dirty;
+        }
+        release(List.of(userId), false);
+        unflushedUsers.remove(userId);
+        return true;
+    }
+
+    // Write-behind: persist the carts changed since the last run
+    @Scheduled(fixedDelayString = "${diddycart.cache.cart.flush-interval:1000}")
+    public void flushDirty() {
+        int batchSize = cacheProperties.getCart().getFlushBatchSize();
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            @SuppressWarnings("unchecked")
+            List<String> claimed = call(() -> redisTemplate.execute(CLAIM_SCRIPT,
+                    List.of(DIRTY_KEY, flushingKey, FLUSHERS_KEY), String.valueOf(batchSize), nodeId,
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(NODE_TIMEOUT.toMillis()),
+                    FLUSHING_PREFIX));
+            if (claimed == null || claimed.isEmpty()) {
+                return;
+            }
+
+            List<Long> userIds = claimed.stream().map(Long::valueOf).toList();
+            try {
+                if (flushCarts(userIds) < 0) {
+                    release(userIds, true);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // Postgres failed: mark them dirty again for the next run
+                log.warn("Cart flush failed | Carts: {} | {}", userIds.size(), e.getMessage());
+                release(userIds, true);
+                return;
+            }
+            release(userIds, false);
+            if (claimed.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Apply a cart script, rebuilding the hash first if Redis lost it
+    private CartResponse mutate(Long userId, @SuppressWarnings("rawtypes") DefaultRedisScript<List> script,
+            String... args) {
+        return mutate(userId, List.of(key(userId), DIRTY_KEY), script, args);
+    }
+
+    private CartResponse mutate(Long userId, List<String> keys,
+            @SuppressWarnings("rawtypes") DefaultRedisScript<List> script, String... args) {
+        if (!dropIfStale(userId)) {
+            return null;
+        }
+        List<String> result = run(script, keys, args);
+        if (result != null && NO_HASH.equals(result.get(0))) {
+            result = hydrate(userId) != null ? run(script, keys, args) : null;
+        }
+        return fromResult(result);
+    }
+
+    // Same for a guest cart: a missing hash is a new (empty) cart, never loaded from Postgres
+    private CartResponse mutateGuest(String token, @SuppressWarnings("rawtypes") DefaultRedisScript<List> script,
+            String... args) {
+        String key = guestKey(token);
+        List<String> keys = List.of(key, DIRTY_KEY);
+        List<String> result = run(script, keys, args);
+        if (result != null && NO_HASH.equals(result.get(0))) {
+            Long created = call(() -> redisTemplate.execute(HYDRATE_SCRIPT, List.of(key),
+                    guestTtlSeconds(), GUEST, "1"));
+            result = created != null ? run(script, keys, args) : null;
+        }
+        return fromResult(result);
+    }
+
+    // Script result -> cart, null if Redis was unavailable
+    private CartResponse fromResult(List<String> result) {
+        if (result != null && NOT_IN_CART.equals(result.get(0))) {
+            throw new RuntimeException("Item not found");
+        }
+        if (result == null || !OK.equals(result.get(0))) {
+            return null;
+        }
+
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 1; i + 1 < result.size(); i += 2) {
+            entries.put(result.get(i), result.get(i + 1));
+        }
+        return toResponse(entries);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private List<String> run(DefaultRedisScript<List> script, List<String> keys, String... args) {
+        return call(() -> (List<String>) redisTemplate.execute(script, keys, (Object[]) args));
+    }
+
+    // ADD_SCRIPT arguments
+    private String[] addArgs(ProductResponse product, int quantity, String ttl, String owner) {
+        return new String[] { String.valueOf(product.getId()), String.valueOf(quantity), snapshotOf(product),
+                String.valueOf(System.currentTimeMillis()), ttl, owner };
+    }
+
+    // BATCH_SCRIPT arguments, products supplies the snapshots of added/updated lines
+    private String[] batchArgs(List<CartBatchRequest.Item> items, Map<Long, ProductCard> products, String ttl,
+            String owner) {
+        List<String> args = new ArrayList<>(3 + items.size() * 4);
+        args.add(ttl);
+        args.add(owner);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        for (CartBatchRequest.Item item : items) {
+            ProductCard card = products.get(item.getProductId());
+            args.add(item.getAction().name());
+            args.add(String.valueOf(item.getProductId()));
+            args.add(String.valueOf(item.getQuantity() != null ? item.getQuantity() : 0));
+            args.add(card != null ? toJson(new Snapshot(card.getName(), card.getPrice(), card.getImageUrl())) : "");
+        }
+        return args.toArray(String[]::new);
+    }
+
+    // Load the cart from Postgres into Redis (null if Redis is unavailable)
+    private Map<String, String> hydrate(Long userId) {
+        Map<String, String> entries = loadEntries(userId);
+
+        List<String> args = new ArrayList<>(entries.size() * 2 + 1);
+        args.add(ttlSeconds());
+        entries.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        Long stored = call(() -> redisTemplate.execute(HYDRATE_SCRIPT, List.of(key(userId)), args.toArray()));
+        return stored != null ? entries : null;
+    }
+
+    // The user's cart (created if missing) as hash entries, one statement
+    private Map<String, String> loadEntries(Long userId) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        long[] position = { 0 };
+        jdbcTemplate.query(LOAD_CART, rs -> {
+            entries.put(CART_ID, String.valueOf(rs.getLong(1)));
+            entries.put(VERSION, String.valueOf(rs.getLong(7)));
+            long productId = rs.getLong(2);
+            if (rs.wasNull() || rs.getString(4) == null) {
+                return; // empty cart, or the product is gone
+            }
+            entries.put(QUANTITY + productId, String.valueOf(rs.getInt(3)));
+            entries.put(SNAPSHOT + productId, toJson(new Snapshot(rs.getString(4), rs.getBigDecimal(5),
+                    rs.getString(6))));
+            entries.put(ADDED + productId, String.valueOf(position[0]++));
+            entries.put(LINE_ID + productId, String.valueOf(rs.getLong(8)));
+        }, userId, userId);
+        return entries;
+    }
+
+    // Persist the hashes of these users, returns carts written or -1 if Redis was unavailable
+    private int flushCarts(List<Long> userIds) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Map<Long, String> superseded = new HashMap<>();
+        Map<Long, Map<Long, Long>> newLineIds = new HashMap<>();
+        Integer flushed = transaction.execute(status -> jdbcTemplate.execute(
+                (ConnectionCallback<Integer>) connection -> {
+            Map<Long, LockedCart> locked = lockCarts(connection, userIds);
+            if (locked.isEmpty()) {
+                return 0;
+            }
+
+            List<Long> users = new ArrayList<>(locked.keySet());
+            List<Object> hashes = call(() -> redisTemplate.executePipelined((RedisCallback<Object>) redis -> {
+                StringRedisConnection stringRedis = (StringRedisConnection) redis;
+                users.forEach(userId -> stringRedis.hGetAll(key(userId)));
+                return null;
+            }));
+            if (hashes == null) {
+                return -1;
+            }
+
+            List<Long> carts = new ArrayList<>();
+            List<Long> lineCarts = new ArrayList<>();
+            List<Long> lineProducts = new ArrayList<>();
+            List<Integer> lineQuantities = new ArrayList<>();
+            List<Long> newLineCarts = new ArrayList<>();
+            List<Long> newLineProducts = new ArrayList<>();
+            Map<Long, Long> userOfCart = new HashMap<>();
+            for (int i = 0; i < users.size(); i++) {
+                @SuppressWarnings("unchecked")
+                Map<String, String> hash = (Map<String, String>) hashes.get(i);
+                if (hash == null || hash.isEmpty() || staleUsers.contains(users.get(i))) {
+                    continue; // lost or superseded by Postgres, the rows stay as they are
+                }
+                LockedCart cart = locked.get(users.get(i));
+                String version = hash.getOrDefault(VERSION, "0");
+                if (cart.version() != Long.parseLong(version)) {
+                    superseded.put(users.get(i), version); // written directly since the hash was loaded
+                    continue;
+                }
+                Long cartId = cart.id();
+                carts.add(cartId);
+                userOfCart.put(cartId, users.get(i));
+                hash.forEach((field, value) -> {
+                    if (field.startsWith(QUANTITY)) {
+                        String productId = field.substring(QUANTITY.length());
+                        lineCarts.add(cartId);
+                        lineProducts.add(Long.valueOf(productId));
+                        lineQuantities.add(Integer.valueOf(value));
+                        if (!hash.containsKey(LINE_ID + productId)) {
+                            newLineCarts.add(cartId);
+                            newLineProducts.add(Long.valueOf(productId));
+                        }
+                    }
+                });
+            }
+            if (carts.isEmpty()) {
+                return 0;
+            }
+
+            Long[] lineCartArray = lineCarts.toArray(Long[]::new);
+            Long[] lineProductArray = lineProducts.toArray(Long[]::new);
+            update(connection, DELETE_REMOVED_LINES, "bigint", carts.toArray(Long[]::new),
+                    "bigint", lineCartArray, "bigint", lineProductArray);
+            update(connection, UPSERT_LINES, "bigint", lineCartArray, "bigint", lineProductArray,
+                    "int4", lineQuantities.toArray(Integer[]::new));
+            if (!newLineCarts.isEmpty()) {
+                selectLineIds(connection, newLineCarts, newLineProducts).forEach((key, id) -> newLineIds
+                        .computeIfAbsent(userOfCart.get(key.cartId()), user -> new HashMap<>())
+                        .put(key.productId(), id));
+            }
+            return carts.size();
+        }));
+
+        sample.stop(meterRegistry.timer("diddycart.cart.flush.duration"));
+        if (!superseded.isEmpty()) {
+            dropSuperseded(superseded);
+        }
+        if (!newLineIds.isEmpty()) {
+            recordLineIds(newLineIds);
+        }
+        if (flushed != null && flushed > 0) {
+            meterRegistry.counter("diddycart.cart.flush.carts").increment(flushed);
+        }
+        return flushed != null ? flushed : 0;
+    }
+
+    // (cart, product) -> cartitem ID of these lines
+    private Map<LineKey, Long> selectLineIds(Connection connection, List<Long> cartIds, List<Long> productIds)
+            throws SQLException {
+        Map<LineKey, Long> ids = new HashMap<>();
+        Array carts = connection.createArrayOf("bigint", cartIds.toArray());
+        Array products = connection.createArrayOf("bigint", productIds.toArray());
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_LINE_IDS)) {
+            statement.setArray(1, carts);
+            statement.setArray(2, products);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.put(new LineKey(rs.getLong(1), rs.getLong(2)), rs.getLong(3));
+                }
+            }
+        } finally {
+            carts.free();
+            products.free();
+        }
+        return ids;
+    }
+
+    // Best effort: a line whose ID is not recorded just shows no ID until the hash is reloaded
+    private void recordLineIds(Map<Long, Map<Long, Long>> idsByUser) {
+        call(() -> redisTemplate.executePipelined((RedisCallback<Object>) redis -> {
+            StringRedisConnection stringRedis = (StringRedisConnection) redis;
+            idsByUser.forEach((userId, ids) -> {
+                List<String> args = new ArrayList<>(ids.size() * 2 + 1);
+                args.add(key(userId));
+                ids.forEach((productId, id) -> {
+                    args.add(String.valueOf(productId));
+                    args.add(String.valueOf(id));
+                });
+                stringRedis.eval(SET_LINE_IDS_SCRIPT.getScriptAsString(), ReturnType.INTEGER, 1,
+                        args.toArray(String[]::new));
+            });
+            return null;
+        }));
+    }
+
+    // Hashes found behind their cart row: their changes lose to the direct write, the next
+    // access rebuilds them from Postgres
+    private void dropSuperseded(Map<Long, String> versions) {
+        log.warn("Cart hashes superseded by direct Postgres writes, dropped | Carts: {}", versions.size());
+        meterRegistry.counter("diddycart.cart.flush.superseded").increment(versions.size());
+        call(() -> redisTemplate.executePipelined((RedisCallback<Object>) redis -> {
+            StringRedisConnection stringRedis = (StringRedisConnection) redis;
+            versions.forEach((userId, version) -> stringRedis.eval(DROP_SUPERSEDED_SCRIPT.getScriptAsString(),
+                    ReturnType.INTEGER, 2, key(userId), DIRTY_KEY, String.valueOf(userId), version));
+            return null;
+        }));
+    }
+
+    // userId -> ID and version of the carts that exist, locked for the rest of the transaction
+    private Map<Long, LockedCart> lockCarts(Connection connection, List<Long> userIds) throws SQLException {
+        Map<Long, LockedCart> cartIds = new LinkedHashMap<>();
+        Array users = connection.createArrayOf("bigint", userIds.toArray());
+        try (PreparedStatement statement = connection.prepareStatement(LOCK_CARTS)) {
+            statement.setArray(1, users);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    cartIds.put(rs.getLong(2), new LockedCart(rs.getLong(1), rs.getLong(3)));
+                }
+            }
+        } finally {
+            users.free();
+        }
+        return cartIds;
+    }
+
+    // Run a statement whose parameters are all arrays, given as (SQL type, values) pairs
+    private void update(Connection connection, String sql, Object... typedArrays) throws SQLException {
+        Array[] arrays = new Array[typedArrays.length / 2];
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < arrays.length; i++) {
+                arrays[i] = connection.createArrayOf((String) typedArrays[i * 2], (Object[]) typedArrays[i * 2 + 1]);
+                statement.setArray(i + 1, arrays[i]);
+            }
+            statement.executeUpdate();
+        } finally {
+            for (Array array : arrays) {
+                if (array != null) {
+                    array.free();
+                }
+            }
+        }
+    }
+
+    // Drop the hash of a user written straight to Postgres, false if Redis is unavailable
+    private boolean dropIfStale(Long userId) {
+        if (!staleUsers.remove(userId)) {
+            return circuitBreaker.allowRequest();
+        }
+        Long dropped = call(() -> {
+            redisTemplate.delete(key(userId));
+            redisTemplate.opsForSet().remove(DIRTY_KEY, String.valueOf(userId));
+            return 1L;
+        });
+        if (dropped == null) {
+            staleUsers.add(userId);
+            return false;
+        }
+        return true;
+    }
+
+    // Drop claimed users from the flushing set once written; with requeue (the flush failed) mark
+    // them dirty again, or hold them until Redis is back. If Redis is unavailable they also stay
+    // in the flushing set, which recovery hands back to the dirty set.
+    private void release(List<Long> userIds, boolean requeue) {
+        List<String> args = new ArrayList<>(userIds.size() + 1);
+        args.add(requeue ? "1" : "0");
+        userIds.forEach(userId -> args.add(String.valueOf(userId)));
+        Long released = call(() -> redisTemplate.execute(RELEASE_SCRIPT, List.of(flushingKey, DIRTY_KEY),
+                args.toArray()));
+        if (released == null && requeue) {
+            unflushedUsers.addAll(userIds);
+        }
+    }
+
+    // Replay what was missed while Redis was unavailable
+    private void onRedisRecovered() {
+        new ArrayList<>(staleUsers).forEach(this::dropIfStale);
+        call(() -> redisTemplate.execute(RETURN_CLAIMED_SCRIPT, List.of(flushingKey, DIRTY_KEY, FLUSHERS_KEY), ""));
+
+        List<Long> unflushed = new ArrayList<>(unflushedUsers);
+        if (!unflushed.isEmpty() && call(() -> redisTemplate.opsForSet().add(DIRTY_KEY,
+                unflushed.stream().map(String::valueOf).toArray(String[]::new))) != null) {
+            unflushed.forEach(unflushedUsers::remove);
+        }
+    }
+
+    // Hash -> CartResponse, lines in the order they were first added
+    private CartResponse toResponse(Map<String, String> entries) {
+        CartResponse response = new CartResponse();
+        String cartId = entries.get(CART_ID);
+        response.setCartId(cartId != null ? Long.valueOf(cartId) : null);
+
+        List<CartItemResponse> items = new ArrayList<>();
+        Map<Long, Long> addedAt = new HashMap<>();
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            if (!entry.getKey().startsWith(QUANTITY)) {
+                continue;
+            }
+            String productId = entry.getKey().substring(QUANTITY.length());
+            Snapshot snapshot = fromJson(entries.get(SNAPSHOT + productId));
+            if (snapshot == null) {
+                continue;
+            }
+
+            CartItemResponse item = new CartItemResponse();
+            String lineId = entries.get(LINE_ID + productId);
+            item.setId(lineId != null ? Long.valueOf(lineId) : null);
+            item.setProductId(Long.valueOf(productId));
+            item.setProductName(snapshot.name());
+            item.setProductImage(snapshot.image());
+            item.setPrice(snapshot.price());
+            item.setQuantity(Integer.valueOf(entry.getValue()));
+            item.setSubTotal(snapshot.price().multiply(BigDecimal.valueOf(item.getQuantity())));
+            totalAmount = totalAmount.add(item.getSubTotal());
+            addedAt.put(item.getProductId(), Long.valueOf(entries.getOrDefault(ADDED + productId, "0")));
+            items.add(item);
+        }
+        items.sort(Comparator.comparing((CartItemResponse item) -> addedAt.get(item.getProductId()))
+                .thenComparing(CartItemResponse::getProductId));
+
+        response.setItems(items);
+        response.setTotalAmount(totalAmount);
+        return response;
+    }
+
+    private String snapshotOf(ProductResponse product) {
+        String image = product.getImageUrls() != null && !product.getImageUrls().isEmpty()
+                ? product.getImageUrls().get(0)
+                : null;
+        return toJson(new Snapshot(product.getName(), product.getPrice(), image));
+    }
+
+    private String toJson(Snapshot snapshot) {
+        try {
+            return JSON.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cart line snapshot not serializable", e);
+        }
+    }
+
+    private Snapshot fromJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return JSON.readValue(json, Snapshot.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable cart line snapshot: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    // Run a Redis call through the breaker, null when Redis is unavailable or the call failed
+    private <T> T call(Supplier<T> action) {
+        if (!circuitBreaker.allowRequest()) {
+            return null;
+        }
+        try {
+            T result = action.get();
+            circuitBreaker.recordSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+            log.debug("Cart store unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String key(Long userId) {
+        return PREFIX + userId;
+    }
+
+    // Callers pass client-supplied tokens, only well-formed ones become keys
+    private String guestKey(String token) {
+        if (token == null || !GUEST_TOKEN.matcher(token).matches()) {
+            throw new RuntimeException("Invalid guest cart token");
+        }
+        return GUEST_PREFIX + token;
+    }
+
+    private String guestTtlSeconds() {
+        return String.valueOf(cacheProperties.getCart().getGuestTtl().toSeconds());
+    }
+
+    private String ttlSeconds() {
+        return String.valueOf(cacheProperties.getCart().getTtl().toSeconds());
+    }
+
+    // Redis only follows committed Postgres changes (runs immediately outside a transaction)
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // What a line showed when it was added (prices are re-read from Postgres at checkout)
+    private record LockedCart(long id, long version) {
+    }
+
+    private record LineKey(long cartId, long productId) {
+    }
+
+    record Snapshot(String name, BigDecimal price, String image) {
+    }
+}
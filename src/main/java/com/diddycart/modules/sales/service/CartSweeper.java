@@ -0,0 +1,138 @@
+package com.diddycart.modules.sales.service;
+
+import com.diddycart.common.cache.CacheProperties;
+import com.diddycart.common.infrastructure.DistributedLockService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Empties carts nobody has touched for diddycart.cache.cart.abandon-after.
+//
+// One node at a time (Redis lease), in bounded batches: each batch is a single statement
+// that picks the next idle carts still holding lines (oldest first, SKIP LOCKED so carts
+// being flushed or checked out wait for the next run) and deletes their lines. No entities
+// are loaded. Cart rows stay, they are one per user and reused by the cart upserts.
+// The idle period is never shorter than the Redis cart TTL, so the only live hashes of
+// swept carts are ones loaded read-only before the sweep; those are dropped afterwards.
+@Component
+public class CartSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(CartSweeper.class);
+    private static final String LOCK_NAME = "cart-sweeper";
+
+    // Lease per run; batches stop at half of it so a run never outlives its lease
+    private static final Duration LEASE = Duration.ofMinutes(15);
+
+    // Keyset over (updated_at, id) so carts left empty are not re-scanned by every batch
+    private static final String SWEEP_BATCH = "WITH idle AS (" +
+            "SELECT c.id, c.user_id, c.updated_at FROM cart c " +
+            "WHERE c.updated_at < ? AND (c.updated_at, c.id) > (?, ?) " +
+            "AND EXISTS (SELECT 1 FROM cartitem ci WHERE ci.cart_id = c.id) " +
+            "ORDER BY c.updated_at, c.id LIMIT ? FOR UPDATE SKIP LOCKED), " +
+            "swept AS (DELETE FROM cartitem ci USING idle WHERE ci.cart_id = idle.id RETURNING ci.cart_id) " +
+            "SELECT idle.id, idle.user_id, idle.updated_at, COUNT(swept.cart_id) " +
+            "FROM idle LEFT JOIN swept ON swept.cart_id = idle.id " +
+            "GROUP BY idle.id, idle.user_id, idle.updated_at " +
+            "ORDER BY idle.updated_at, idle.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DistributedLockService lockService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Nightly by default (diddycart.cache.cart.sweep-cron)
+    @Scheduled(cron = "${diddycart.cache.cart.sweep-cron:0 15 4 * * *}")
+    public void sweep() {
+        String token;
+        try {
+            token = lockService.tryAcquire(LOCK_NAME, LEASE);
+        } catch (RuntimeException e) {
+            // Without Redis there is no way to keep other nodes out, skip this run
+            log.warn("Cart sweep skipped, lock unavailable | {}", e.getMessage());
+            return;
+        }
+        if (token == null) {
+            return; // another node is sweeping
+        }
+
+        try {
+            sweepIdleCarts();
+        } finally {
+            try {
+                lockService.release(LOCK_NAME, token);
+            } catch (RuntimeException e) {
+                // Lease expires on its own
+            }
+        }
+    }
+
+    private void sweepIdleCarts() {
+        CacheProperties.Cart settings = cacheProperties.getCart();
+        Duration idle = settings.getAbandonAfter().compareTo(settings.getTtl()) < 0
+                ? settings.getTtl()
+                : settings.getAbandonAfter();
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(idle));
+        int batchSize = settings.getSweepBatchSize();
+        long deadline = System.currentTimeMillis() + LEASE.toMillis() / 2;
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Timestamp afterTime = new Timestamp(0);
+        long afterId = 0;
+        long carts = 0;
+        long lines = 0;
+        while (System.currentTimeMillis() < deadline) {
+            List<Long> userIds = new ArrayList<>();
+            long[] swept = { 0 };
+            Object[] last = new Object[2];
+            int picked = jdbcTemplate.query(SWEEP_BATCH, rs -> {
+                int rows = 0;
+                while (rs.next()) {
+                    long userId = rs.getLong(2);
+                    if (!rs.wasNull()) {
+                        userIds.add(userId);
+                    }
+                    last[0] = rs.getTimestamp(3);
+                    last[1] = rs.getLong(1);
+                    swept[0] += rs.getLong(4);
+                    rows++;
+                }
+                return rows;
+            }, cutoff, afterTime, afterId, batchSize);
+
+            cartStore.evictSwept(userIds);
+            carts += picked;
+            lines += swept[0];
+            if (picked < batchSize) {
+                break;
+            }
+            afterTime = (Timestamp) last[0];
+            afterId = (Long) last[1];
+        }
+
+        sample.stop(meterRegistry.timer("diddycart.cart.sweep.duration"));
+        meterRegistry.summary("diddycart.cart.sweep.lines").record(lines);
+        meterRegistry.counter("diddycart.cart.sweep.carts").increment(carts);
+        log.info("Abandoned carts swept | Carts: {} | Lines: {} | Idle for: {}", carts, lines, idle);
+    }
+}
@@ -1,12 +1,15 @@
 package com.diddycart.modules.sales.service;
 
+import com.diddycart.common.cache.ExistenceFilter;
+import com.diddycart.common.pagination.CursorCodec;
+import com.diddycart.common.pagination.CursorPage;
 import com.diddycart.modules.sales.dto.OrderItemResponse;
 import com.diddycart.modules.sales.dto.OrderRequest;
 import com.diddycart.modules.sales.dto.OrderResponse;
 import com.diddycart.modules.sales.models.OrderStatus;
 import com.diddycart.modules.payment.models.PaymentStatus;
 import com.diddycart.modules.products.models.Product;
-import com.diddycart.modules.products.repository.ProductRepository;
+import com.diddycart.modules.products.service.ProductStockService;
 import com.diddycart.modules.sales.models.Order;
 import com.diddycart.modules.sales.models.OrderItem;
 import com.diddycart.modules.sales.models.Cart;
@@ -41,7 +44,7 @@ public class OrderService {
     private CartService cartService;
 
     @Autowired
-    private ProductRepository productRepository;
+    private ProductStockService productStockService;
 
     @Autowired
     private UserRepository userRepository;
@@ -49,11 +52,15 @@ public class OrderService {
     @Autowired
     private AddressRepository addressRepository;
 
+    @Autowired
+    private ExistenceFilter existenceFilter;
+
     // Place an Order
     @Transactional
     public OrderResponse placeOrder(Long userId, OrderRequest req) {
 
-        // Get Cart of the user by userId
+        // Get Cart of the user by userId (live Redis cart written to Postgres first)
+        cartService.flushCart(userId);
         Cart cart = cartService.getOrCreateCart(userId);
         if (cart.getItems() == null || cart.getItems().isEmpty()) {
             throw new RuntimeException("Cannot place order: Cart is empty");
@@ -87,13 +94,9 @@ public class OrderService {
 
         for (CartItem cartItem : cart.getItems()) {
             Product product = cartItem.getProduct();
-            if (product.getStockQuantity() < cartItem.getQuantity()) {
-                throw new RuntimeException("Out of stock: " + product.getName());
-            }
 
-            // Deduct stock from product
-            product.setStockQuantity(product.getStockQuantity() - cartItem.getQuantity());
-            productRepository.save(product);
+            // Deduct stock atomically (fails if another order took it first)
+            productStockService.reserve(product.getId(), cartItem.getQuantity(), product.getName());
 
             // Create OrderItem object
             OrderItem orderItem = new OrderItem();
@@ -115,6 +118,7 @@ public class OrderService {
 
         // Save & Clear Cart
         Order savedOrder = orderRepository.save(order);
+        existenceFilter.recordCreated(ExistenceFilter.Entity.ORDERS, savedOrder.getId());
         cartService.clearCart(userId);
 
         return mapToResponse(savedOrder);
@@ -127,6 +131,34 @@ public class OrderService {
         return orderRepository.findByUser(user, pageable).map(this::mapToResponse);
     }
 
+    // Get Orders for User by cursor, newest first (keyset pagination, no count query)
+    public CursorPage<OrderResponse> getUserOrdersAfter(Long userId, String cursor, Integer size) {
+        int limit = CursorCodec.clampSize(size);
+        List<Order> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findFirstSliceByUser(userId, limit + 1);
+        } else {
+            CursorCodec.TimeAndId after = CursorCodec.decodeTimeAndId(cursor);
+            rows = orderRepository.findSliceByUserAfter(userId, after.time(), after.id(), limit + 1);
+        }
+        return CursorCodec.slice(rows, limit, this::mapToResponse,
+                order -> CursorCodec.encodeTimeAndId(order.getCreatedAt(), order.getId()));
+    }
+
+    // Get All Orders by cursor for Admin, newest first (keyset pagination, no count query)
+    public CursorPage<OrderResponse> getAllOrdersAfter(String cursor, Integer size) {
+        int limit = CursorCodec.clampSize(size);
+        List<Order> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findFirstSlice(limit + 1);
+        } else {
+            CursorCodec.TimeAndId after = CursorCodec.decodeTimeAndId(cursor);
+            rows = orderRepository.findSliceAfter(after.time(), after.id(), limit + 1);
+        }
+        return CursorCodec.slice(rows, limit, this::mapToResponse,
+                order -> CursorCodec.encodeTimeAndId(order.getCreatedAt(), order.getId()));
+    }
+
     // Cancel Unpaid Orders by every 10 minutes
     @Scheduled(fixedRate = 600000)
     @Transactional
@@ -144,9 +176,7 @@ public class OrderService {
 
             // Restore stock from Product
             for (OrderItem item : order.getOrderItems()) {
-                Product product = item.getProduct();
-                product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-                productRepository.save(product);
+                productStockService.release(item.getProduct().getId(), item.getQuantity());
             }
 
             order.setStatus(OrderStatus.CANCELLED);
@@ -158,11 +188,21 @@ public class OrderService {
     }
 
     // Get Order by ID by orderId and userId checks cache first
-    @Cacheable(value = "orders", key = "#userId + '_' + #orderId")
+    // IDs the existence filter rules out skip the cache and fail fast
+    @Cacheable(value = "orders", key = "#userId + '_' + #orderId",
+            condition = "@existenceFilter.mightExist('orders', #orderId)")
     public OrderResponse getOrderById(Long orderId, Long userId) {
+        if (!existenceFilter.mightExist(ExistenceFilter.Entity.ORDERS, orderId)
+                || existenceFilter.isKnownMissing(ExistenceFilter.Entity.ORDERS, orderId)) {
+            throw new RuntimeException("Order not found with id: " + orderId);
+        }
+
         // Find order by orderId
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            existenceFilter.recordMissing(ExistenceFilter.Entity.ORDERS, orderId);
+            throw new RuntimeException("Order not found with id: " + orderId);
+        }
 
         // Verify ownership by userId and orderId
         if (!order.getUser().getId().equals(userId)) {
@@ -211,9 +251,7 @@ public class OrderService {
 
         // Restore stock from Product
         for (OrderItem item : order.getOrderItems()) {
-            Product product = item.getProduct();
-            product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-            productRepository.save(product);
+            productStockService.release(item.getProduct().getId(), item.getQuantity());
         }
 
         order.setStatus(OrderStatus.CANCELLED);
@@ -0,0 +1,273 @@
+package com.diddycart;
+
+import com.diddycart.common.cache.RedisCircuitBreaker;
+import com.diddycart.modules.identity.models.User;
+import com.diddycart.modules.identity.models.UserRole;
+import com.diddycart.modules.identity.models.Vendor;
+import com.diddycart.modules.products.dto.ProductResponse;
+import com.diddycart.modules.products.models.Category;
+import com.diddycart.modules.products.models.Product;
+import com.diddycart.modules.products.models.ProductImage;
+import com.diddycart.modules.products.service.ProductService;
+import com.diddycart.modules.sales.dto.CartResponse;
+import com.diddycart.modules.sales.dto.OrderResponse;
+import com.diddycart.modules.sales.models.Cart;
+import com.diddycart.modules.sales.models.CartItem;
+import com.diddycart.modules.sales.models.Order;
+import com.diddycart.modules.sales.models.OrderItem;
+import com.diddycart.modules.sales.service.CartService;
+import com.diddycart.modules.sales.service.OrderService;
+import jakarta.persistence.EntityManager;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+// Read paths run a fixed number of statements however many lines/images they return
+// (counted per thread on the JDBC DataSource, fixtures are rolled back after each test)
+@SpringBootTest
+@Transactional
+class ReadPathStatementCountTests {
+
+	private static final int LINES = 5;
+	private static final int IMAGES = 3;
+
+	@TestConfiguration
+	static class CountingDataSource {
+
+		@Bean
+		static BeanPostProcessor countingDataSourcePostProcessor() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+						return ProxyDataSourceBuilder.create(dataSource).name("counted").countQuery().build();
+					}
+					return bean;
+				}
+			};
+		}
+	}
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private CartService cartService;
+
+	@MockitoSpyBean
+	private RedisCircuitBreaker circuitBreaker;
+
+	private User shopper;
+	private List<Product> products;
+
+	@BeforeEach
+	void createCatalog() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		User vendorUser = user("vendor-" + suffix, UserRole.VENDOR);
+		shopper = user("shopper-" + suffix, UserRole.USER);
+
+		Vendor vendor = new Vendor();
+		vendor.setUser(vendorUser);
+		vendor.setStoreName("Store " + suffix);
+		vendor.setGstin(("GST" + suffix + "0000000").substring(0, 15).toUpperCase());
+		entityManager.persist(vendor);
+
+		Category category = new Category();
+		category.setType("Category " + suffix);
+		entityManager.persist(category);
+
+		products = new ArrayList<>();
+		for (int i = 0; i < LINES; i++) {
+			Product product = new Product();
+			product.setName("Product " + suffix + " " + i);
+			product.setPrice(BigDecimal.valueOf(100 + i));
+			product.setStockQuantity(50);
+			product.setCategory(category);
+			product.setVendor(vendor);
+			product.setImages(new ArrayList<>());
+			for (int j = 0; j < IMAGES; j++) {
+				ProductImage image = new ProductImage();
+				image.setProduct(product);
+				image.setImageUrl("https://cdn.example.com/" + suffix + "/" + i + "-" + j + ".jpg");
+				product.getImages().add(image);
+			}
+			entityManager.persist(product);
+			products.add(product);
+		}
+	}
+
+	@AfterEach
+	void clearCounts() {
+		QueryCountHolder.clear();
+	}
+
+	@Test
+	void productDetailIsOneStatement() {
+		Long id = products.get(0).getId();
+
+		long statements = count(() -> {
+			ProductResponse product = productService.getProductById(id);
+			assertThat(product.getImageUrls()).hasSize(IMAGES);
+		});
+
+		cacheManager.getCache("products").evict(id);
+		assertThat(statements).isEqualTo(1);
+	}
+
+	@Test
+	void listingPageIsPageCountAndImages() {
+		long statements = count(() -> productService.getAllProducts(PageRequest.of(0, 20)));
+
+		// A page already in the product_pages cache costs nothing
+		assertThat(statements).isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	void cardPageIsPageAndCount() {
+		long statements = count(() -> productService.getProductCards(PageRequest.of(0, 20)));
+
+		assertThat(statements).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void orderDetailDoesNotGrowWithLines() {
+		Order order = new Order();
+		order.setUser(shopper);
+		order.setStreet("1 Test Street");
+		order.setCity("Mumbai");
+		order.setState("Maharashtra");
+		order.setPincode("400001");
+		order.setOrderItems(new ArrayList<>());
+		BigDecimal total = BigDecimal.ZERO;
+		for (Product product : products) {
+			OrderItem item = new OrderItem();
+			item.setOrder(order);
+			item.setProduct(product);
+			item.setPrice(product.getPrice());
+			item.setQuantity(2);
+			order.getOrderItems().add(item);
+			total = total.add(product.getPrice().multiply(BigDecimal.valueOf(2)));
+		}
+		order.setTotal(total);
+		entityManager.persist(order);
+
+		long statements = count(() -> {
+			OrderResponse response = orderService.getOrderById(order.getId(), shopper.getId());
+			assertThat(response.getItems()).hasSize(LINES);
+		});
+
+		cacheManager.getCache("orders").evict(shopper.getId() + "_" + order.getId());
+		// Order, its lines, their products and images: one batched statement each
+		assertThat(statements).isLessThanOrEqualTo(4);
+	}
+
+	@Test
+	void cartWithLinesIsOneStatement() {
+		createCart();
+
+		long statements = count(() -> {
+			Cart cart = cartService.getOrCreateCart(shopper.getId());
+			assertThat(cart.getItems()).hasSize(LINES);
+			cart.getItems().forEach(item -> assertThat(item.getProduct().getName()).isNotNull());
+		});
+
+		assertThat(statements).isEqualTo(1);
+	}
+
+	@Test
+	void cartFallbackReadIsOneStatement() {
+		createCart();
+		redisUnavailable();
+
+		long statements = count(() -> {
+			CartResponse cart = cartService.getCart(shopper.getId());
+			assertThat(cart.getItems()).hasSize(LINES);
+			cart.getItems().forEach(item -> assertThat(item.getProductImage()).isNotNull());
+		});
+
+		assertThat(statements).isEqualTo(1);
+	}
+
+	@Test
+	void cartFallbackWriteDoesNotGrowWithLines() {
+		createCart();
+		redisUnavailable();
+
+		long statements = count(() -> {
+			CartResponse cart = cartService.removeFromCart(shopper.getId(), products.get(0).getId());
+			assertThat(cart.getItems()).hasSize(LINES - 1);
+			cart.getItems().forEach(item -> assertThat(item.getProductImage()).isNotNull());
+		});
+
+		// Version bump, cart with its lines, the delete, and the cart re-read with products and images
+		assertThat(statements).isLessThanOrEqualTo(4);
+	}
+
+	// Cart calls then take the Postgres fallback (the spy is reset after each test)
+	private void redisUnavailable() {
+		doReturn(false).when(circuitBreaker).allowRequest();
+	}
+
+	private void createCart() {
+		Cart cart = new Cart();
+		cart.setUser(shopper);
+		cart.setItems(new ArrayList<>());
+		for (Product product : products) {
+			CartItem item = new CartItem();
+			item.setCart(cart);
+			item.setProduct(product);
+			item.setQuantity(1);
+			cart.getItems().add(item);
+		}
+		entityManager.persist(cart);
+	}
+
+	// Statements run by the action against a cold persistence context
+	private long count(Runnable action) {
+		entityManager.flush();
+		entityManager.clear();
+		QueryCountHolder.clear();
+		action.run();
+		return QueryCountHolder.getGrandTotal().getTotal();
+	}
+
+	private User user(String name, UserRole role) {
+		User user = new User();
+		user.setName(name);
+		user.setEmail(name + "@test.diddycart.com");
+		user.setPassword("not-a-real-hash");
+		user.setRole(role);
+		entityManager.persist(user);
+		return user;
+	}
+}
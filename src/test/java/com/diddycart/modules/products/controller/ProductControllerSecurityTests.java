@@ -0,0 +1,159 @@
+package com.diddycart.modules.products.controller;
+
+import com.diddycart.common.config.SecurityConfig;
+import com.diddycart.common.security.JwtUtil;
+import com.diddycart.common.web.HttpCaching;
+import com.diddycart.modules.identity.repository.UserRepository;
+import com.diddycart.modules.products.service.CatalogChangeService;
+import com.diddycart.modules.products.service.CatalogFacetIndex;
+import com.diddycart.modules.products.service.CatalogSuggestIndex;
+import com.diddycart.modules.products.service.ProductBulkUpdateService;
+import com.diddycart.modules.products.service.ProductExportService;
+import com.diddycart.modules.products.service.ProductImportService;
+import com.diddycart.modules.products.service.ProductService;
+import com.diddycart.modules.products.service.ProductStockService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Catalog write/export endpoints are guarded by URL rules in SecurityConfig
+// (@PreAuthorize on the controller is not enforced, method security is off)
+@WebMvcTest(ProductController.class)
+@Import(SecurityConfig.class)
+class ProductControllerSecurityTests {
+
+	private static final String USER_TOKEN = "Bearer user-token";
+	private static final String VENDOR_TOKEN = "Bearer vendor-token";
+	private static final String ADMIN_TOKEN = "Bearer admin-token";
+	private static final String BULK_BODY = "{\"items\":[{\"productId\":1,\"price\":9.99}]}";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private JwtUtil jwtUtil;
+
+	@MockitoBean
+	private UserRepository userRepository;
+
+	@MockitoBean
+	private ProductService productService;
+
+	@MockitoBean
+	private ProductStockService productStockService;
+
+	@MockitoBean
+	private CatalogFacetIndex catalogFacetIndex;
+
+	@MockitoBean
+	private CatalogSuggestIndex catalogSuggestIndex;
+
+	@MockitoBean
+	private CatalogChangeService catalogChangeService;
+
+	@MockitoBean
+	private ProductImportService productImportService;
+
+	@MockitoBean
+	private ProductBulkUpdateService productBulkUpdateService;
+
+	@MockitoBean
+	private ProductExportService productExportService;
+
+	@MockitoBean
+	private HttpCaching httpCaching;
+
+	@BeforeEach
+	void tokens() {
+		token("user-token", 1L, "USER");
+		token("vendor-token", 2L, "VENDOR");
+		token("admin-token", 3L, "ADMIN");
+	}
+
+	@Test
+	void anonymousCannotImport() throws Exception {
+		mockMvc.perform(post("/api/products/import").contentType("text/csv").content("name,price\n"))
+				.andExpect(status().isForbidden());
+		verifyNoInteractions(productImportService);
+	}
+
+	@Test
+	void shopperCannotImport() throws Exception {
+		mockMvc.perform(post("/api/products/import").header("Authorization", USER_TOKEN)
+						.contentType(MediaType.APPLICATION_NDJSON).content("{}\n"))
+				.andExpect(status().isForbidden());
+		verifyNoInteractions(productImportService);
+	}
+
+	@Test
+	void vendorImportFormatFollowsContentType() throws Exception {
+		mockMvc.perform(post("/api/products/import").header("Authorization", VENDOR_TOKEN)
+						.contentType("text/csv;charset=UTF-8").content("name,price\n"))
+				.andExpect(status().isOk());
+		verify(productImportService).importProducts(any(), eq(ProductImportService.Format.CSV), eq(2L));
+
+		mockMvc.perform(post("/api/products/import").header("Authorization", VENDOR_TOKEN)
+						.contentType(MediaType.APPLICATION_NDJSON).content("{}\n"))
+				.andExpect(status().isOk());
+		verify(productImportService).importProducts(any(), eq(ProductImportService.Format.NDJSON), eq(2L));
+	}
+
+	@Test
+	void anonymousCannotBulkUpdate() throws Exception {
+		mockMvc.perform(put("/api/products/bulk").contentType(MediaType.APPLICATION_JSON).content(BULK_BODY))
+				.andExpect(status().isForbidden());
+		verifyNoInteractions(productBulkUpdateService);
+	}
+
+	@Test
+	void shopperCannotBulkUpdate() throws Exception {
+		mockMvc.perform(put("/api/products/bulk").header("Authorization", USER_TOKEN)
+						.contentType(MediaType.APPLICATION_JSON).content(BULK_BODY))
+				.andExpect(status().isForbidden());
+		verifyNoInteractions(productBulkUpdateService);
+	}
+
+	@Test
+	void anonymousCannotExport() throws Exception {
+		mockMvc.perform(get("/api/products/export"))
+				.andExpect(status().isForbidden());
+		verifyNoInteractions(productExportService);
+	}
+
+	@Test
+	void vendorCannotExport() throws Exception {
+		mockMvc.perform(get("/api/products/export").header("Authorization", VENDOR_TOKEN))
+				.andExpect(status().isForbidden());
+		verifyNoInteractions(productExportService);
+	}
+
+	@Test
+	void adminCanExport() throws Exception {
+		when(productExportService.export(ProductExportService.Format.CSV, null)).thenReturn(out -> { });
+
+		mockMvc.perform(get("/api/products/export").param("format", "csv").header("Authorization", ADMIN_TOKEN))
+				.andExpect(status().isOk());
+		verify(productExportService).export(ProductExportService.Format.CSV, null);
+	}
+
+	private void token(String token, Long userId, String role) {
+		when(jwtUtil.extractUserId(token)).thenReturn(userId);
+		when(jwtUtil.validateToken(token)).thenReturn(true);
+		when(jwtUtil.extractRole(token)).thenReturn(role);
+	}
+}
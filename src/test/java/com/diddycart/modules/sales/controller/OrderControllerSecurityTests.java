@@ -0,0 +1,96 @@
+package com.diddycart.modules.sales.controller;
+
+import com.diddycart.common.config.SecurityConfig;
+import com.diddycart.common.security.JwtUtil;
+import com.diddycart.modules.identity.repository.UserRepository;
+import com.diddycart.modules.sales.models.OrderStatus;
+import com.diddycart.modules.sales.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Order administration endpoints are guarded by URL rules in SecurityConfig
+// (@PreAuthorize on the controller is not enforced, method security is off)
+@WebMvcTest(OrderController.class)
+@Import(SecurityConfig.class)
+class OrderControllerSecurityTests {
+
+	private static final String USER_TOKEN = "Bearer user-token";
+	private static final String VENDOR_TOKEN = "Bearer vendor-token";
+	private static final String ADMIN_TOKEN = "Bearer admin-token";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private JwtUtil jwtUtil;
+
+	@MockitoBean
+	private UserRepository userRepository;
+
+	@MockitoBean
+	private OrderService orderService;
+
+	@BeforeEach
+	void tokens() {
+		token("user-token", 1L, "USER");
+		token("vendor-token", 2L, "VENDOR");
+		token("admin-token", 3L, "ADMIN");
+	}
+
+	@Test
+	void shopperCannotListAllOrders() throws Exception {
+		mockMvc.perform(get("/api/orders/admin/all").header("Authorization", USER_TOKEN))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/orders/admin/all/cursor").header("Authorization", USER_TOKEN))
+				.andExpect(status().isForbidden());
+		verifyNoInteractions(orderService);
+	}
+
+	@Test
+	void vendorCannotListAllOrders() throws Exception {
+		mockMvc.perform(get("/api/orders/admin/all/cursor").header("Authorization", VENDOR_TOKEN))
+				.andExpect(status().isForbidden());
+		verifyNoInteractions(orderService);
+	}
+
+	@Test
+	void adminCanListAllOrdersByCursor() throws Exception {
+		mockMvc.perform(get("/api/orders/admin/all/cursor").header("Authorization", ADMIN_TOKEN))
+				.andExpect(status().isOk());
+		verify(orderService).getAllOrdersAfter(null, null);
+	}
+
+	@Test
+	void shopperCannotUpdateStatus() throws Exception {
+		mockMvc.perform(put("/api/orders/admin/5/status").param("status", "SHIPPED")
+						.header("Authorization", USER_TOKEN))
+				.andExpect(status().isForbidden());
+		verifyNoInteractions(orderService);
+	}
+
+	@Test
+	void vendorCanUpdateStatus() throws Exception {
+		mockMvc.perform(put("/api/orders/admin/5/status").param("status", "SHIPPED")
+						.header("Authorization", VENDOR_TOKEN))
+				.andExpect(status().isOk());
+		verify(orderService).updateOrderStatus(5L, OrderStatus.SHIPPED);
+	}
+
+	private void token(String token, Long userId, String role) {
+		when(jwtUtil.extractUserId(token)).thenReturn(userId);
+		when(jwtUtil.validateToken(token)).thenReturn(true);
+		when(jwtUtil.extractRole(token)).thenReturn(role);
+	}
+}